@@ -3,10 +3,13 @@ package com.tradernet.api.resources;
 import com.tradernet.currencyconversion.CurrencyCode;
 import com.tradernet.currencyconversion.CurrencyConversionService;
 import com.tradernet.marketai.MarketAiService;
+import com.tradernet.marketai.engine.SignalGuardrails;
 import com.tradernet.marketai.model.AiSignal;
 import com.tradernet.marketai.model.MarketBar;
 import com.tradernet.marketai.model.MarketContextSnapshot;
+import com.tradernet.marketai.store.BarStore;
 import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
@@ -16,7 +19,9 @@ import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.MediaType;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -39,9 +44,16 @@ public class MarketResource {
             @DefaultValue("BTCUSDT") @QueryParam("symbol") String symbol,
             @DefaultValue("1S") @QueryParam("interval") String interval,
             @DefaultValue("500") @QueryParam("limit") int limit,
-            @DefaultValue("USD") @QueryParam("currency") String currency) {
+            @DefaultValue("USD") @QueryParam("currency") String currency,
+            @QueryParam("from") Long from,
+            @QueryParam("to") Long to) {
+        if (!BarStore.isValidSymbol(symbol.trim())) {
+            throw new BadRequestException("symbol must contain only letters and digits");
+        }
         CurrencyCode targetCurrency = CurrencyCode.parseOrDefault(currency, CurrencyCode.USD);
-        List<MarketBar> rawBars = marketAiService.getBars(symbol, interval, limit);
+        List<MarketBar> rawBars = from == null && to == null
+                ? marketAiService.getBars(symbol, interval, limit)
+                : marketAiService.getBars(symbol, interval, from == null ? Long.MIN_VALUE : from, to == null ? Long.MAX_VALUE : to, limit);
 
         try {
             return rawBars.stream()
@@ -72,6 +84,35 @@ public class MarketResource {
         return marketAiService.getSignals(symbol, limit);
     }
 
+    @GET
+    @Path("/signals/guardrails")
+    public SignalGuardrails getSignalGuardrails(@DefaultValue("BTCUSDT") @QueryParam("symbol") String symbol) {
+        return marketAiService.getSignalGuardrails(symbol);
+    }
+
+    @POST
+    @Path("/signals/guardrails")
+    public SignalGuardrails updateSignalGuardrails(
+            @DefaultValue("BTCUSDT") @QueryParam("symbol") String symbol,
+            @QueryParam("minConfidence") Double minConfidence,
+            @QueryParam("cooldownMs") Long cooldownMs) {
+        if (minConfidence != null && !(minConfidence >= 0.0 && minConfidence <= 1.0)) {
+            throw new BadRequestException("minConfidence must be between 0 and 1");
+        }
+        if (cooldownMs != null && cooldownMs < 0L) {
+            throw new BadRequestException("cooldownMs must not be negative");
+        }
+        return marketAiService.updateSignalGuardrails(symbol, minConfidence, cooldownMs);
+    }
+
+    @GET
+    @Path("/metrics")
+    public Map<String, Object> getMetrics() {
+        final Map<String, Object> metrics = new LinkedHashMap<>(marketAiService.getMetrics());
+        metrics.putAll(MarketStreamFrames.getMetrics());
+        return metrics;
+    }
+
     @GET
     @Path("/context")
     public MarketContextSnapshot getMarketContext(@DefaultValue("BTCUSDT") @QueryParam("symbol") String symbol) {
@@ -1,32 +1,34 @@
 package com.tradernet.api.resources;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tradernet.currencyconversion.CurrencyCode;
 import com.tradernet.currencyconversion.CurrencyConversionService;
 import com.tradernet.marketai.MarketAiService;
-import com.tradernet.marketai.model.AiSignal;
 import com.tradernet.marketai.model.MarketBar;
 import jakarta.enterprise.inject.spi.CDI;
+import jakarta.websocket.CloseReason;
 import jakarta.websocket.OnClose;
 import jakarta.websocket.OnOpen;
 import jakarta.websocket.Session;
 import jakarta.websocket.server.ServerEndpoint;
 
-import java.util.HashMap;
+import java.io.IOException;
 import java.util.Locale;
-import java.util.Map;
+import java.util.function.Function;
 
 /**
  * WebSocket endpoint streaming bar updates and AI signals.
+ *
+ * <p>{@code interval} selects the bar timeframe (1S by default; 1M, 5M, 15M, 1H, 4H and 1D are built live).
+ * Sessions for a {@code symbol} that is not streamed are closed with {@code CANNOT_ACCEPT}.</p>
  */
 @ServerEndpoint("/ws/market")
 public class MarketStreamEndpoint {
 
-    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
-
     private AutoCloseable barSubscription;
     private AutoCloseable signalSubscription;
+    // Held only once the subscription exists; events delivered before then are encoded unshared.
+    private volatile MarketStreamFrames.Channel barFrames;
+    private volatile MarketStreamFrames.Channel signalFrames;
 
     @OnOpen
     public void onOpen(Session session) {
@@ -34,52 +36,71 @@ public class MarketStreamEndpoint {
         final CurrencyConversionService conversionService = CDI.current().select(CurrencyConversionService.class).get();
         final String requestedCurrency = session.getRequestParameterMap().getOrDefault("currency", java.util.List.of("USD")).stream().findFirst().orElse("USD");
         final String requestedSymbol = session.getRequestParameterMap().getOrDefault("symbol", java.util.List.of("BTCUSDT")).stream().findFirst().orElse("BTCUSDT");
+        final String requestedInterval = session.getRequestParameterMap().getOrDefault("interval", java.util.List.of("1S")).stream().findFirst().orElse("1S");
         final String normalizedSymbol = normalizeSymbol(requestedSymbol);
+        if (!service.isStreamed(normalizedSymbol)) {
+            close(session, new CloseReason(CloseReason.CloseCodes.CANNOT_ACCEPT, "Symbol is not streamed"));
+            return;
+        }
         final CurrencyCode targetCurrency = CurrencyCode.parseOrDefault(requestedCurrency, CurrencyCode.USD);
-        barSubscription = service.subscribeBars(bar -> {
-            if (matchesSymbol(bar.getSymbol(), normalizedSymbol)) {
-                send(session, "bar", conversionService.convertBar(bar, targetCurrency));
-            }
-        });
-        signalSubscription = service.subscribeSignals(signal -> {
-            if (matchesSymbol(signal.getSymbol(), normalizedSymbol)) {
-                send(session, "signal", signal);
-            }
-        });
+        // Updates arrive on the publisher's delivery threads, so currency conversion here never stalls ingestion.
+        final Runnable onOverflow = () -> closeLagging(session);
+        final Function<MarketBar, MarketBar> convert = bar -> conversionService.convertBar(bar, targetCurrency);
+        barSubscription = service.subscribeBars(normalizedSymbol, requestedInterval,
+                bar -> send(session, frame(barFrames, "bar", bar, convert)), onOverflow);
+        barFrames = MarketStreamFrames.acquire("bar", normalizedSymbol, service.liveTimeframeMs(requestedInterval), targetCurrency);
+        signalSubscription = service.subscribeSignals(normalizedSymbol,
+                signal -> send(session, frame(signalFrames, "signal", signal, Function.identity())), onOverflow);
+        signalFrames = MarketStreamFrames.acquire("signal", normalizedSymbol, 0L, null);
     }
 
     @OnClose
     public void onClose() {
         closeQuietly(barSubscription);
         closeQuietly(signalSubscription);
+        releaseFrames();
     }
 
-    private void send(Session session, String type, Object payload) {
-        final String message = toJson(type, payload);
-        if (message == null) {
+    private void releaseFrames() {
+        if (barFrames != null) {
+            MarketStreamFrames.release(barFrames);
+            barFrames = null;
+        }
+        if (signalFrames != null) {
+            MarketStreamFrames.release(signalFrames);
+            signalFrames = null;
+        }
+    }
+
+    private static <T> String frame(MarketStreamFrames.Channel channel, String type, T event, Function<T, ?> payload) {
+        return channel != null ? channel.frame(event, payload) : MarketStreamFrames.encode(type, event, payload);
+    }
+
+    private void send(Session session, String frame) {
+        if (frame == null) {
             return;
         }
 
         synchronized (session) {
             if (session.isOpen()) {
-                session.getAsyncRemote().sendText(message);
+                session.getAsyncRemote().sendText(frame);
             }
         }
     }
 
-    private String toJson(String type, Object payload) {
-        final Map<String, Object> envelope = new HashMap<>();
-        envelope.put("type", type);
-        envelope.put("payload", payload);
-        try {
-            return OBJECT_MAPPER.writeValueAsString(envelope);
-        } catch (JsonProcessingException ex) {
-            return null;
-        }
+    /**
+     * Closes a session whose subscription was dropped for falling behind, telling the client to reconnect.
+     */
+    private void closeLagging(Session session) {
+        close(session, new CloseReason(CloseReason.CloseCodes.TRY_AGAIN_LATER, "Client is too slow"));
     }
 
-    private boolean matchesSymbol(String actualSymbol, String expectedSymbol) {
-        return actualSymbol == null || actualSymbol.trim().toUpperCase(Locale.ROOT).equals(expectedSymbol);
+    private void close(Session session, CloseReason reason) {
+        try {
+            session.close(reason);
+        } catch (IOException ignored) {
+            // The session is already gone.
+        }
     }
 
     private String normalizeSymbol(String rawSymbol) {
@@ -0,0 +1,139 @@
+package com.tradernet.api.resources;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tradernet.currencyconversion.CurrencyCode;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * JSON frames for {@link MarketStreamEndpoint}, encoded once and shared by every session on the same stream.
+ *
+ * <p>Sessions watching one symbol and timeframe receive the same event instances from their topic. Each
+ * (event type, symbol, timeframe, currency) combination has one {@link Channel} that converts and serializes an event
+ * the first time a session asks for it and hands the resulting immutable string to every other session, so the cost
+ * no longer grows with the number of viewers. Channels are counted per session and removed when the last one
+ * releases them.</p>
+ */
+final class MarketStreamFrames {
+
+    private static final int RECENT_FRAMES = 8;
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final Map<String, Channel> CHANNELS = new ConcurrentHashMap<>();
+    private static final LongAdder ENCODED = new LongAdder();
+    private static final LongAdder SHARED = new LongAdder();
+    private static final LongAdder ENCODE_NANOS = new LongAdder();
+
+    private MarketStreamFrames() {
+    }
+
+    /**
+     * The shared channel for one stream, held for the calling session until {@link #release released}.
+     *
+     * @param timeframeMs resolved timeframe of the bars, so tokens naming the same stream share a channel; 0 for
+     *                    events without one
+     * @param currency target currency of bar prices; {@code null} for events that are not converted
+     */
+    static Channel acquire(String type, String symbol, long timeframeMs, CurrencyCode currency) {
+        final String key = type + '|' + symbol + '|' + timeframeMs + '|' + currency;
+        return CHANNELS.compute(key, (ignored, channel) -> {
+            final Channel held = channel != null ? channel : new Channel(key, type);
+            held.sessions++;
+            return held;
+        });
+    }
+
+    /**
+     * Drops one session's hold on {@code channel}, removing it once no session holds it.
+     */
+    static void release(Channel channel) {
+        CHANNELS.computeIfPresent(channel.key, (ignored, held) -> --held.sessions == 0 ? null : held);
+    }
+
+    /**
+     * Encodes one frame without sharing it, for events that arrive before a session holds its channel.
+     */
+    static <T> String encode(String type, T event, Function<T, ?> payload) {
+        final long started = System.nanoTime();
+        final String text = toJson(type, payload.apply(event));
+        ENCODE_NANOS.add(System.nanoTime() - started);
+        ENCODED.increment();
+        return text;
+    }
+
+    static Map<String, Object> getMetrics() {
+        final long encoded = ENCODED.sum();
+        final Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("websocket.channels", CHANNELS.size());
+        metrics.put("websocket.framesEncoded", encoded);
+        metrics.put("websocket.framesShared", SHARED.sum());
+        metrics.put("websocket.avgEncodeNs", encoded == 0L ? 0L : ENCODE_NANOS.sum() / encoded);
+        return metrics;
+    }
+
+    static final class Channel {
+
+        private final String key;
+        private final String type;
+        // Sessions drain at their own pace, so a few recent events stay shareable, not only the newest.
+        private final AtomicReferenceArray<Frame> recent = new AtomicReferenceArray<>(RECENT_FRAMES);
+        private final AtomicInteger cursor = new AtomicInteger();
+        // Only changed inside CHANNELS.compute for this key.
+        private int sessions;
+
+        private Channel(String key, String type) {
+            this.key = key;
+            this.type = type;
+        }
+
+        /**
+         * The frame for {@code event}, encoding {@code payload.apply(event)} only if no session has asked for this event
+         * instance recently. Returns {@code null} if the payload cannot be serialized.
+         */
+        <T> String frame(T event, Function<T, ?> payload) {
+            for (int index = 0; index < RECENT_FRAMES; index++) {
+                final Frame cached = recent.get(index);
+                if (cached != null && cached.event == event) {
+                    SHARED.increment();
+                    return cached.text;
+                }
+            }
+
+            // Sessions racing on a new event may each encode it once; the result is identical.
+            final String text = encode(type, event, payload);
+            if (text != null) {
+                recent.set(cursor.getAndIncrement() & (RECENT_FRAMES - 1), new Frame(event, text));
+            }
+            return text;
+        }
+    }
+
+    private static String toJson(String type, Object payload) {
+        final Map<String, Object> envelope = new HashMap<>();
+        envelope.put("type", type);
+        envelope.put("payload", payload);
+        try {
+            return OBJECT_MAPPER.writeValueAsString(envelope);
+        } catch (JsonProcessingException ex) {
+            return null;
+        }
+    }
+
+    private static final class Frame {
+
+        private final Object event;
+        private final String text;
+
+        private Frame(Object event, String text) {
+            this.event = event;
+            this.text = text;
+        }
+    }
+}
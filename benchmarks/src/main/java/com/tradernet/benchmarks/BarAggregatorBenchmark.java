@@ -0,0 +1,91 @@
+package com.tradernet.benchmarks;
+
+import com.tradernet.marketai.engine.BarAggregator;
+import com.tradernet.marketai.engine.BarSink;
+import com.tradernet.marketai.model.MarketBar;
+import com.tradernet.marketai.model.MarketTrade;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-trade cost of {@link BarAggregator#ingest}, meant to be run with the GC profiler:
+ * {@code java -jar benchmarks/target/benchmarks.jar BarAggregatorBenchmark -prof gc}.
+ *
+ * <p>Trades inside a forming bar only update primitive fields, so {@code gc.alloc.rate.norm} for {@link #ingest}
+ * should be close to zero: the only allocation is the closed bar, once every {@code tradesPerBar} trades.
+ * {@link #ingestAndSnapshot} adds the forming-bar read a subscriber would do, which is where a {@link MarketBar} is
+ * materialized.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BarAggregatorBenchmark {
+
+    private static final long TIMEFRAME_MS = 1_000L;
+
+    @Param({"100", "1000"})
+    private int tradesPerBar;
+
+    private final MarketTrade trade = new MarketTrade();
+    private final LastBarSink sink = new LastBarSink();
+    private BarAggregator aggregator;
+    private long eventTime;
+    private long step;
+    private long count;
+
+    @Setup
+    public void setUp() {
+        aggregator = new BarAggregator("BTCUSDT", TIMEFRAME_MS, 0L, 0);
+        eventTime = 1_700_000_000_000L;
+        step = TIMEFRAME_MS * 1_000L / tradesPerBar;
+    }
+
+    @Benchmark
+    public MarketBar ingest() {
+        aggregator.ingest(nextTrade(), sink);
+        return sink.last;
+    }
+
+    @Benchmark
+    public MarketBar ingestAndSnapshot() {
+        aggregator.ingest(nextTrade(), sink);
+        return aggregator.snapshotForming();
+    }
+
+    private MarketTrade nextTrade() {
+        // Microsecond steps keep trades in order and close a bar every tradesPerBar trades.
+        count += step;
+        final long time = eventTime + count / 1_000L;
+        final double price = 43_000.0 + (count % 1_000L) * 0.01;
+        return trade.set("BTCUSDT", time, price, 0.001);
+    }
+
+    private static final class LastBarSink implements BarSink {
+
+        private MarketBar last;
+
+        @Override
+        public void onClosed(MarketBar bar) {
+            last = bar;
+        }
+
+        @Override
+        public void onCorrection(MarketBar previous, MarketBar corrected) {
+            last = corrected;
+        }
+    }
+}
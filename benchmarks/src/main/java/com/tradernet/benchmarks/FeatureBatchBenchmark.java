@@ -0,0 +1,121 @@
+package com.tradernet.benchmarks;
+
+import com.tradernet.marketai.engine.FeatureBatch;
+import com.tradernet.marketai.engine.FeatureEngine;
+import com.tradernet.marketai.engine.FeatureSeries;
+import com.tradernet.marketai.model.BarSeries;
+import com.tradernet.marketai.model.FeatureSnapshot;
+import com.tradernet.marketai.model.MarketBar;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feature backfill throughput over two years of one-minute bars, reported in bars per second:
+ * {@code java -jar benchmarks/target/benchmarks.jar FeatureBatchBenchmark}.
+ *
+ * <p>{@link #batch} is the columnar {@link FeatureBatch#compute} path, {@link #batchAcrossSymbols} splits the same
+ * number of bars over eight symbols on the fork/join pool, and {@link #barByBar} pushes every bar through
+ * {@link FeatureEngine#onClosedBar} as warm-up did before the batch API existed.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class FeatureBatchBenchmark {
+
+    private static final long MINUTE_MS = 60_000L;
+    private static final int BARS = 2 * 365 * 24 * 60;
+    private static final int SYMBOLS = 8;
+
+    private BarSeries series;
+    private List<BarSeries> perSymbol;
+    private List<MarketBar> bars;
+
+    @Setup
+    public void setUp() {
+        series = randomWalk("BTCUSDT", BARS, 1L);
+        perSymbol = new ArrayList<>();
+        for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+            perSymbol.add(randomWalk("SYM" + symbol + "USDT", BARS / SYMBOLS, symbol + 2L));
+        }
+        bars = new ArrayList<>(BARS);
+        for (int index = 0; index < BARS; index++) {
+            bars.add(new MarketBar(series.getSymbol(), series.getBucketStarts()[index], series.getOpens()[index],
+                    series.getHighs()[index], series.getLows()[index], series.getCloses()[index],
+                    series.getVolumes()[index], true));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BARS)
+    public FeatureSeries batch() {
+        return FeatureBatch.compute(series);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BARS)
+    public List<FeatureSeries> batchAcrossSymbols() {
+        return FeatureBatch.computeAll(perSymbol);
+    }
+
+    /**
+     * Records every feature after every bar, as the batch paths do, so the outputs are comparable.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BARS)
+    public double[][] barByBar() {
+        final FeatureEngine engine = new FeatureEngine(null, 1);
+        final int width = engine.getIndicators().width();
+        final double[][] columns = new double[3 + width][BARS];
+        int index = 0;
+        for (MarketBar bar : bars) {
+            final FeatureSnapshot features = engine.onClosedBar(bar);
+            columns[0][index] = features.getEmaFast();
+            columns[1][index] = features.getEmaSlow();
+            columns[2][index] = features.getRsi();
+            for (int slot = 0; slot < width; slot++) {
+                columns[3 + slot][index] = features.getIndicator(slot);
+            }
+            index++;
+        }
+        return columns;
+    }
+
+    private static BarSeries randomWalk(String symbol, int count, long seed) {
+        final Random random = new Random(seed);
+        final long[] starts = new long[count];
+        final double[] opens = new double[count];
+        final double[] highs = new double[count];
+        final double[] lows = new double[count];
+        final double[] closes = new double[count];
+        final double[] volumes = new double[count];
+        double price = 30_000.0;
+        for (int index = 0; index < count; index++) {
+            final double open = price;
+            price = Math.max(1.0, price * (1.0 + random.nextGaussian() * 0.001));
+            starts[index] = 1_600_000_000_000L + index * MINUTE_MS;
+            opens[index] = open;
+            closes[index] = price;
+            highs[index] = Math.max(open, price) * (1.0 + random.nextDouble() * 0.0005);
+            lows[index] = Math.min(open, price) * (1.0 - random.nextDouble() * 0.0005);
+            volumes[index] = 1.0 + random.nextDouble() * 50.0;
+        }
+        return new BarSeries(symbol, starts, opens, highs, lows, closes, volumes, count);
+    }
+}
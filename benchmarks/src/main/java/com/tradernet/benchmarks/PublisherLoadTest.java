@@ -0,0 +1,118 @@
+package com.tradernet.benchmarks;
+
+import com.tradernet.marketai.engine.MarketEventPublisher;
+import com.tradernet.marketai.model.MarketBar;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load test for {@link MarketEventPublisher}: 5,000 simulated WebSocket sessions spread over 50 symbols, each
+ * subscribed to one symbol's 1s bars, while a single thread publishes one bar per symbol per round.
+ *
+ * <p>Run with {@code java -cp benchmarks/target/benchmarks.jar com.tradernet.benchmarks.PublisherLoadTest}. Sizes
+ * come from {@code loadtest.sessions} (5000), {@code loadtest.symbols} (50) and {@code loadtest.rounds} (600), and
+ * the publisher reads its usual {@code market.ai.publish.*} properties. {@code -Dloadtest.broadcast=true} subscribes
+ * every session to all symbols and filters in the consumer, as sessions did before topics, for comparison.</p>
+ */
+public final class PublisherLoadTest {
+
+    private static final long DRAIN_TIMEOUT_MS = 120_000L;
+
+    private PublisherLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        final int sessions = Integer.getInteger("loadtest.sessions", 5_000);
+        final int symbolCount = Integer.getInteger("loadtest.symbols", 50);
+        final int rounds = Integer.getInteger("loadtest.rounds", 600);
+        final boolean broadcast = Boolean.getBoolean("loadtest.broadcast");
+
+        final String[] symbols = new String[symbolCount];
+        for (int index = 0; index < symbolCount; index++) {
+            symbols[index] = "SYM" + index + "USDT";
+        }
+
+        final LongAdder consumerCalls = new LongAdder();
+        final LongAdder received = new LongAdder();
+        final List<AutoCloseable> subscriptions = new ArrayList<>(sessions);
+        try (MarketEventPublisher publisher = MarketEventPublisher.fromSystemProperties()) {
+            // Pipelines intern their symbol before any session can subscribe to it.
+            final int[] symbolIds = new int[symbolCount];
+            for (int index = 0; index < symbolCount; index++) {
+                symbolIds[index] = publisher.symbolId(symbols[index]);
+            }
+
+            for (int session = 0; session < sessions; session++) {
+                final String symbol = symbols[session % symbolCount];
+                if (broadcast) {
+                    subscriptions.add(publisher.subscribeBars(null, MarketEventPublisher.ONE_SECOND_MS, bar -> {
+                        consumerCalls.increment();
+                        if (bar.getSymbol().trim().toUpperCase(Locale.ROOT).equals(symbol)) {
+                            received.increment();
+                        }
+                    }, null));
+                } else {
+                    subscriptions.add(publisher.subscribeBars(symbol, MarketEventPublisher.ONE_SECOND_MS, bar -> {
+                        consumerCalls.increment();
+                        received.increment();
+                    }, null));
+                }
+            }
+
+            final long started = System.nanoTime();
+            long publishNanos = 0L;
+            for (int round = 0; round < rounds; round++) {
+                final long bucketStart = 1_700_000_000_000L + round * MarketEventPublisher.ONE_SECOND_MS;
+                final long roundStarted = System.nanoTime();
+                for (int index = 0; index < symbolCount; index++) {
+                    final double price = 100.0 + index + round * 0.01;
+                    publisher.publishBar(symbolIds[index], new MarketBar(symbols[index], bucketStart, price, price, price, price, 1.0, true));
+                }
+                publishNanos += System.nanoTime() - roundStarted;
+            }
+            final Map<String, Object> metrics = awaitDrained(publisher, consumerCalls);
+            final long elapsedNanos = System.nanoTime() - started;
+
+            final long events = (long) rounds * symbolCount;
+            final long expected = (long) rounds * sessions;
+            System.out.printf(Locale.ROOT, "mode=%s sessions=%d symbols=%d rounds=%d policy=%s%n",
+                    broadcast ? "broadcast" : "topics", sessions, symbolCount, rounds, metrics.get("publish.overflowPolicy"));
+            System.out.printf(Locale.ROOT, "publish: %d events, %.1f us/event on the publishing thread%n",
+                    events, publishNanos / 1_000.0 / events);
+            System.out.printf(Locale.ROOT, "delivery: %d of %d expected in %.2f s (%.0f/s), %d consumer calls%n",
+                    received.sum(), expected, elapsedNanos / 1e9, received.sum() / (elapsedNanos / 1e9), consumerCalls.sum());
+            System.out.printf(Locale.ROOT, "dropped=%s conflated=%s disconnects=%s%n",
+                    metrics.get("publish.droppedEvents"), metrics.get("publish.conflatedEvents"), metrics.get("publish.disconnects"));
+        } finally {
+            for (AutoCloseable subscription : subscriptions) {
+                subscription.close();
+            }
+        }
+    }
+
+    /**
+     * Waits until no events are queued and the consumers have stopped being called, then returns the final metrics.
+     */
+    private static Map<String, Object> awaitDrained(MarketEventPublisher publisher, LongAdder consumerCalls) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MS;
+        long lastCalls = -1L;
+        while (true) {
+            final Map<String, Object> metrics = publisher.getMetrics();
+            final long calls = consumerCalls.sum();
+            if (((Number) metrics.get("publish.queuedEvents")).longValue() == 0L && calls == lastCalls) {
+                return metrics;
+            }
+            if (System.currentTimeMillis() > deadline) {
+                System.out.println("Delivery did not drain within " + DRAIN_TIMEOUT_MS + " ms");
+                return metrics;
+            }
+            lastCalls = calls;
+            TimeUnit.MILLISECONDS.sleep(50L);
+        }
+    }
+}
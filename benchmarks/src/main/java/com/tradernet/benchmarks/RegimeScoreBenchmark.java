@@ -0,0 +1,154 @@
+package com.tradernet.benchmarks;
+
+import com.tradernet.marketai.context.MarketRegimeScore;
+import com.tradernet.marketai.context.MarketRegimeScoreEngine;
+import com.tradernet.marketai.model.FeatureSnapshot;
+import com.tradernet.marketai.model.MarketContextSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-bar cost of the market regime score before and after the context part was cached:
+ * {@code java -jar benchmarks/target/benchmarks.jar RegimeScoreBenchmark}.
+ *
+ * <p>{@link #uncachedValue} is the previous per-bar computation, which weighed every context component on every bar;
+ * {@link #cachedValue} is what scoring pays now between context updates. {@link #contextUpdate} alternates between
+ * two snapshots, so every bar pays the recomputation the first bar after a registry update pays, and
+ * {@link #cachedScore} is what building notes for a signal costs.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegimeScoreBenchmark {
+
+    private final MarketRegimeScoreEngine engine = new MarketRegimeScoreEngine();
+    private final MarketContextSnapshot[] contexts = {
+            new MarketContextSnapshot(1.2, 0.8, -0.4, 0.3, -0.6, 0.9, 0.5),
+            new MarketContextSnapshot(1.1, 0.7, -0.3, 0.2, -0.5, 1.0, 0.4)
+    };
+    private FeatureSnapshot features;
+    private long bar;
+
+    @Setup
+    public void setUp() {
+        features = new FeatureSnapshot("BTCUSDT", 0L, 43_000.0, 43_010.0, 42_990.0, 55.0, new double[0], contexts[0]);
+    }
+
+    @Benchmark
+    public int uncachedValue() {
+        return UncachedValue.compute(nextBar(contexts[0]));
+    }
+
+    @Benchmark
+    public int cachedValue() {
+        return engine.value(nextBar(contexts[0]));
+    }
+
+    @Benchmark
+    public int contextUpdate() {
+        return engine.value(nextBar(contexts[(int) (bar & 1L)]));
+    }
+
+    @Benchmark
+    public MarketRegimeScore cachedScore() {
+        return engine.score(nextBar(contexts[0]));
+    }
+
+    private FeatureSnapshot nextBar(MarketContextSnapshot context) {
+        bar++;
+        final double close = 43_000.0 + (bar % 200L) - 100.0;
+        features.update("BTCUSDT", bar * 1_000L, close, close + 5.0, close - 5.0, 30.0 + (bar % 40L), context);
+        return features;
+    }
+
+    /**
+     * {@link MarketRegimeScoreEngine#value} as it was before the context part was cached.
+     */
+    private static final class UncachedValue {
+
+        private UncachedValue() {
+        }
+
+        static int compute(FeatureSnapshot features) {
+            final MarketContextSnapshot context = features.getMarketContext();
+            double score = 50.0;
+            score += clamp((features.getEmaFast() - features.getEmaSlow()) / Math.max(features.getClose(), 1.0) * 1_000.0, -2.0, 2.0) * 6.0;
+            score += rsiContribution(features.getRsi()) * 4.0;
+            score += clamp(context.getEtfFlowZScore(), -2.0, 2.0) * 8.0;
+            score += clamp(context.getExchangeOutflowZScore(), -2.0, 2.0) * 7.0;
+            score += derivativesContribution(context) * 6.0;
+            score += valuationContribution(context.getMvrvZScore()) * 6.0;
+            score += clamp(context.getLiquidityGrowthZScore(), -2.0, 2.0) * 7.0;
+            score += sentimentContribution(context.getSentimentZScore()) * 4.0;
+            return (int) Math.round(clamp(score, 0.0, 100.0));
+        }
+
+        private static double derivativesContribution(MarketContextSnapshot context) {
+            final double openInterest = clamp(context.getOpenInterestChangeZScore(), -2.0, 2.0);
+            final double funding = context.getFundingRateZScore();
+            if (funding > 2.0) {
+                return -2.0;
+            }
+            if (funding < -2.0) {
+                return 1.0;
+            }
+            return clamp(openInterest - Math.max(funding - 1.0, 0.0), -2.0, 2.0);
+        }
+
+        private static double valuationContribution(double mvrvZScore) {
+            if (mvrvZScore >= 2.5) {
+                return -2.0;
+            }
+            if (mvrvZScore >= 1.5) {
+                return -1.0;
+            }
+            if (mvrvZScore <= -1.0) {
+                return 1.5;
+            }
+            return 0.75;
+        }
+
+        private static double sentimentContribution(double sentimentZScore) {
+            if (sentimentZScore >= 2.0) {
+                return -1.0;
+            }
+            if (sentimentZScore <= -2.0) {
+                return 1.0;
+            }
+            return clamp(sentimentZScore, -1.0, 1.0);
+        }
+
+        private static double rsiContribution(double rsi) {
+            if (rsi >= 78.0) {
+                return -2.0;
+            }
+            if (rsi >= 68.0) {
+                return -1.0;
+            }
+            if (rsi <= 22.0) {
+                return 1.0;
+            }
+            if (rsi <= 32.0) {
+                return 0.5;
+            }
+            return 0.0;
+        }
+
+        private static double clamp(double value, double min, double max) {
+            return Math.max(min, Math.min(max, value));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.tradernet.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tradernet.marketai.model.MarketTrade;
+import com.tradernet.marketai.stream.BinanceTradeDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trade message decoding throughput: {@link BinanceTradeDecoder} against the Jackson tree path it replaced in
+ * {@code BinanceTradeStreamClient.onText}.
+ *
+ * <p>Run with {@code java -jar benchmarks/target/benchmarks.jar TradeDecoderBenchmark}; add {@code -prof gc} to see
+ * the per-message allocation of each path.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TradeDecoderBenchmark {
+
+    private static final int MESSAGES = 1_024;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BinanceTradeDecoder decoder = new BinanceTradeDecoder();
+    private final MarketTrade trade = new MarketTrade();
+    private final String[] raw = new String[MESSAGES];
+    private final String[] combined = new String[MESSAGES];
+    private final String[] firstHalves = new String[MESSAGES];
+    private final String[] secondHalves = new String[MESSAGES];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        decoder.registerSymbol("BTCUSDT");
+        long tradeId = 3_500_000_000L;
+        long eventTime = 1_700_000_000_000L;
+        for (int index = 0; index < MESSAGES; index++) {
+            final String price = String.format(Locale.ROOT, "%.2f", 43_000.0 + index * 0.37);
+            final String quantity = String.format(Locale.ROOT, "%.5f", 0.0001 + (index % 97) * 0.00113);
+            raw[index] = "{\"e\":\"trade\",\"E\":" + (eventTime + 1) + ",\"s\":\"BTCUSDT\",\"t\":" + tradeId
+                    + ",\"p\":\"" + price + "\",\"q\":\"" + quantity + "\",\"T\":" + eventTime
+                    + ",\"m\":" + (index % 2 == 0) + ",\"M\":true}";
+            combined[index] = "{\"stream\":\"btcusdt@trade\",\"data\":" + raw[index] + "}";
+            firstHalves[index] = raw[index].substring(0, raw[index].length() / 2);
+            secondHalves[index] = raw[index].substring(raw[index].length() / 2);
+            tradeId++;
+            eventTime += 7L;
+        }
+    }
+
+    @Benchmark
+    public MarketTrade decoder() {
+        decoder.decode(raw[advance()], trade);
+        return trade;
+    }
+
+    @Benchmark
+    public MarketTrade decoderCombinedStream() {
+        decoder.decode(combined[advance()], trade);
+        return trade;
+    }
+
+    /**
+     * A message split across two WebSocket fragments, as the client sees it when Binance fragments a frame.
+     */
+    @Benchmark
+    public MarketTrade decoderFragmented() {
+        final int index = advance();
+        decoder.onFrame(firstHalves[index], false, trade);
+        decoder.onFrame(secondHalves[index], true, trade);
+        return trade;
+    }
+
+    /**
+     * The former {@code onText} body: a string copy, a full tree and a new trade per message.
+     */
+    @Benchmark
+    public MarketTrade jacksonTree() throws IOException {
+        final CharSequence data = raw[advance()];
+        final JsonNode node = objectMapper.readTree(data.toString());
+        return new MarketTrade(node.path("s").asText("BTCUSDT"),
+                node.path("T").asLong(0L),
+                node.path("p").asDouble(0.0),
+                node.path("q").asDouble(0.0));
+    }
+
+    private int advance() {
+        final int index = next;
+        next = (index + 1) & (MESSAGES - 1);
+        return index;
+    }
+}
@@ -4,17 +4,27 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tradernet.marketai.context.MarketContextDataIngestionClient;
 import com.tradernet.marketai.context.MarketContextRegistry;
-import com.tradernet.marketai.engine.AiSignalEngine;
-import com.tradernet.marketai.engine.BarAggregator;
-import com.tradernet.marketai.engine.FeatureEngine;
+import com.tradernet.marketai.engine.BarClosePolicyFactory;
+import com.tradernet.marketai.engine.BarMerger;
+import com.tradernet.marketai.engine.CascadingBarAggregator;
 import com.tradernet.marketai.engine.MarketEventPublisher;
+import com.tradernet.marketai.engine.PipelineWorker;
+import com.tradernet.marketai.engine.ShadowScoringStage;
+import com.tradernet.marketai.engine.SignalGuardrails;
+import com.tradernet.marketai.engine.SymbolPipeline;
 import com.tradernet.marketai.model.AiSignal;
 import com.tradernet.marketai.model.ChartInterval;
-import com.tradernet.marketai.model.FeatureSnapshot;
 import com.tradernet.marketai.model.MarketBar;
 import com.tradernet.marketai.model.MarketContextSnapshot;
 import com.tradernet.marketai.model.MarketTrade;
+import com.tradernet.marketai.scoring.ModelRegistry;
+import com.tradernet.marketai.scoring.SignalScorer;
+import com.tradernet.marketai.scoring.SignalScorerFactory;
+import com.tradernet.marketai.store.BarStore;
+import com.tradernet.marketai.store.MappedBarFile;
+import com.tradernet.marketai.stream.BinanceMarketDataClient;
 import com.tradernet.marketai.stream.BinanceTradeStreamClient;
+import com.tradernet.marketai.stream.KlineCache;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import jakarta.ejb.Lock;
@@ -25,18 +35,15 @@ import jakarta.ejb.Startup;
 
 import java.io.IOException;
 import java.net.URI;
-import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.nio.charset.StandardCharsets;
 import java.time.Duration;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.Deque;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
@@ -50,70 +57,140 @@ import java.util.stream.Collectors;
 public class MarketAiService {
 
     private static final int DEFAULT_HISTORY_SIZE = 2_000;
+    // One day of one-second bars (about 4 MB of primitive columns per symbol).
+    private static final int DEFAULT_BAR_HISTORY_SIZE = 86_400;
+    private static final int DEFAULT_WORKER_INBOX_CAPACITY = 16_384;
+    private static final long LOCAL_BAR_MS = 1_000L;
+    // One hour of one-second klines (four requests) per symbol on startup.
+    private static final int DEFAULT_MAX_STARTUP_BACKFILL_BARS = 3_600;
 
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
     private final BinanceTradeStreamClient binanceClient = new BinanceTradeStreamClient();
-    private final BarAggregator barAggregator = new BarAggregator(1_000L);
     private final MarketContextRegistry marketContextRegistry = new MarketContextRegistry();
-    private final FeatureEngine featureEngine = new FeatureEngine(marketContextRegistry);
-    private final AiSignalEngine signalEngine = new AiSignalEngine();
-    private final MarketEventPublisher publisher = new MarketEventPublisher();
+    private final ModelRegistry modelRegistry = ModelRegistry.fromSystemProperties();
+    private final SignalScorer signalScorer = SignalScorerFactory.create(modelRegistry);
+    private final ShadowScoringStage shadowScoring = ShadowScoringStage.fromSystemProperties(modelRegistry);
+    private final MarketEventPublisher publisher = MarketEventPublisher.fromSystemProperties();
+    private final Map<String, SymbolPipeline> pipelines = new ConcurrentHashMap<>();
+    private final BarStore barStore = BarStore.fromSystemProperties();
+    private final int barHistorySize = Integer.getInteger("market.ai.history.bars", DEFAULT_BAR_HISTORY_SIZE);
+    private final PipelineWorker[] workers = createWorkers();
     private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
     private final MarketContextDataIngestionClient contextDataIngestionClient = new MarketContextDataIngestionClient(httpClient, OBJECT_MAPPER);
+    private final BinanceMarketDataClient marketDataClient = new BinanceMarketDataClient(httpClient, OBJECT_MAPPER);
+    private final KlineCache klineCache = new KlineCache();
     private final Set<String> contextRefreshSymbols = ConcurrentHashMap.newKeySet();
+    private final Map<String, SignalGuardrails> guardrailOverrides = new ConcurrentHashMap<>();
 
-    private final Deque<MarketBar> bars = new ArrayDeque<>();
-    private final Deque<AiSignal> signals = new ArrayDeque<>();
+    private long rateSampleCount;
+    private long rateSampleAtNanos = System.nanoTime();
 
+    private volatile String primarySymbol = "BTCUSDT";
     private volatile List<String> cachedSymbols = List.of("BTCUSDT");
     private volatile long cachedSymbolsAtMs = 0L;
 
     @PostConstruct
     public void start() {
-        final String symbol = System.getProperty("market.ai.symbol", "btcusdt");
-        registerContextRefreshSymbols(symbol);
-        registerContextRefreshSymbols(System.getProperty("market.ai.context.symbols", symbol));
-        binanceClient.start(symbol, this::onTrade);
+        final String symbols = System.getProperty("market.ai.symbols", System.getProperty("market.ai.symbol", "btcusdt"));
+        final List<String> streamSymbols = parseSymbols(symbols);
+        if (!streamSymbols.isEmpty()) {
+            primarySymbol = streamSymbols.get(0);
+        }
+        registerContextRefreshSymbols(symbols);
+        registerContextRefreshSymbols(System.getProperty("market.ai.context.symbols", symbols));
+        modelRegistry.start();
+        // Created eagerly so persisted bars are reloaded before the first trade arrives.
+        streamSymbols.forEach(this::pipelineFor);
+        streamSymbols.parallelStream().forEach(this::warmUpFromKlines);
+        publisher.onClosedBar(MarketEventPublisher.ONE_SECOND_MS, klineCache::onLiveBar);
+        for (PipelineWorker worker : workers) {
+            worker.start();
+        }
+        binanceClient.start(streamSymbols, this::onTrade);
         refreshMarketContexts();
     }
 
     @PreDestroy
     public void stop() {
         binanceClient.stop();
+        for (PipelineWorker worker : workers) {
+            worker.stop();
+        }
+        if (shadowScoring != null) {
+            shadowScoring.close();
+        }
+        publisher.close();
+        modelRegistry.close();
+        barStore.close();
     }
 
     @Lock(LockType.READ)
-    public synchronized List<MarketBar> getBars(int limit) {
-        return takeLast(bars, limit);
+    public List<MarketBar> getBars(int limit) {
+        return localBars(primarySymbol, limit);
     }
 
     @Lock(LockType.READ)
     public List<MarketBar> getBars(String symbol, String intervalToken, int limit) {
         final ChartInterval interval = ChartInterval.parse(intervalToken);
+        final boolean localInterval = interval.getDurationMs() == LOCAL_BAR_MS;
+        if (localInterval) {
+            final List<MarketBar> local = localBars(symbol, limit);
+            if (local.size() >= Math.max(1, limit)) {
+                return local;
+            }
+        } else if (interval.getBinanceIntervalMs() == LOCAL_BAR_MS) {
+            // Sub-minute custom intervals are folded from the local 1s ring when it reaches back far enough.
+            final List<MarketBar> merged = mergeLocalBars(normalizeSymbol(symbol), interval, limit);
+            if (merged.size() >= Math.max(1, limit)) {
+                return merged;
+            }
+        }
+
         final List<MarketBar> remoteBars = fetchKlines(symbol, interval, limit);
         if (!remoteBars.isEmpty()) {
             return remoteBars;
         }
 
-        synchronized (this) {
-            return takeLast(bars, limit);
+        return localBars(symbol, limit);
+    }
+
+    /**
+     * Returns bars with {@code fromMs <= bucketStart < toMs}. One-second bars are read from the local bar store.
+     */
+    @Lock(LockType.READ)
+    public List<MarketBar> getBars(String symbol, String intervalToken, long fromMs, long toMs, int limit) {
+        final ChartInterval interval = ChartInterval.parse(intervalToken);
+        if (interval.getDurationMs() == LOCAL_BAR_MS) {
+            final MappedBarFile file = barStore.find(normalizeSymbol(symbol), LOCAL_BAR_MS);
+            if (file != null) {
+                return file.range(fromMs, toMs, limit);
+            }
+        }
+
+        final List<MarketBar> window = new ArrayList<>();
+        for (MarketBar bar : getBars(symbol, intervalToken, limit)) {
+            if (bar.getBucketStart() >= fromMs && bar.getBucketStart() < toMs) {
+                window.add(bar);
+            }
         }
+        return window;
     }
 
     @Lock(LockType.READ)
-    public synchronized List<AiSignal> getSignals(int limit) {
-        return takeLast(signals, limit);
+    public List<AiSignal> getSignals(int limit) {
+        final List<AiSignal> merged = new ArrayList<>();
+        for (SymbolPipeline pipeline : pipelines.values()) {
+            merged.addAll(pipeline.getSignals(limit));
+        }
+        merged.sort(Comparator.comparingLong(AiSignal::getEventTime));
+        return takeLast(merged, limit);
     }
 
     @Lock(LockType.READ)
-    public synchronized List<AiSignal> getSignals(String symbol, int limit) {
-        final String normalizedSymbol = normalizeSymbol(symbol);
-        final List<AiSignal> matchingSignals = signals.stream()
-                .filter(signal -> signal.getSymbol() != null)
-                .filter(signal -> signal.getSymbol().trim().toUpperCase(Locale.ROOT).equals(normalizedSymbol))
-                .collect(Collectors.toList());
-        return takeLast(matchingSignals, limit);
+    public List<AiSignal> getSignals(String symbol, int limit) {
+        final SymbolPipeline pipeline = pipelines.get(normalizeSymbol(symbol));
+        return pipeline == null ? List.of() : pipeline.getSignals(limit);
     }
 
     @Lock(LockType.READ)
@@ -176,14 +253,184 @@ public class MarketAiService {
         marketContextRegistry.update(normalizedSymbol, snapshot);
     }
 
+    @Lock(LockType.READ)
+    public SignalGuardrails getSignalGuardrails(String symbol) {
+        return guardrailsFor(normalizeSymbol(symbol));
+    }
+
+    /**
+     * Overrides the signal confidence threshold and/or cooldown for one symbol until restart. Values left
+     * {@code null} keep their current setting. Applied from the symbol's next bar.
+     */
+    @Lock(LockType.WRITE)
+    public SignalGuardrails updateSignalGuardrails(String symbol, Double minConfidence, Long cooldownMs) {
+        final String normalizedSymbol = normalizeSymbol(symbol);
+        final SignalGuardrails current = guardrailsFor(normalizedSymbol);
+        final SignalGuardrails updated = new SignalGuardrails(
+                minConfidence == null ? current.getMinConfidence() : minConfidence,
+                cooldownMs == null ? current.getCooldownMs() : cooldownMs);
+        guardrailOverrides.put(normalizedSymbol, updated);
+        final SymbolPipeline pipeline = pipelines.get(normalizedSymbol);
+        if (pipeline != null) {
+            pipeline.setSignalGuardrails(updated);
+        }
+        return updated;
+    }
+
+    /**
+     * Re-reads {@code market.ai.signal.*} system properties, so guardrails changed at runtime (for example through
+     * the server's management CLI) take effect without a restart. Symbols with an API override keep it.
+     */
+    @Schedule(hour = "*", minute = "*", second = "30", persistent = false)
+    @Lock(LockType.READ)
+    public void reloadSignalGuardrails() {
+        for (SymbolPipeline pipeline : pipelines.values()) {
+            final SignalGuardrails configured = guardrailsFor(pipeline.getSymbol());
+            if (!configured.equals(pipeline.getSignalGuardrails())) {
+                pipeline.setSignalGuardrails(configured);
+            }
+        }
+    }
+
+    @Lock(LockType.READ)
+    public Set<String> getStreamingSymbols() {
+        return binanceClient.getSubscribedSymbols();
+    }
+
+    @Lock(LockType.WRITE)
+    public void startStreaming(String symbol) {
+        final String normalizedSymbol = normalizeSymbol(symbol);
+        contextRefreshSymbols.add(normalizedSymbol);
+        // A pipeline only exists once its symbol has streamed, so a new one cannot race live trades here.
+        if (!pipelines.containsKey(normalizedSymbol)) {
+            pipelineFor(normalizedSymbol);
+            warmUpFromKlines(normalizedSymbol);
+        }
+        binanceClient.subscribe(normalizedSymbol);
+    }
+
+    @Lock(LockType.WRITE)
+    public void stopStreaming(String symbol) {
+        binanceClient.unsubscribe(normalizeSymbol(symbol));
+    }
+
+    /**
+     * Operational counters for the ingestion pipeline, keyed by dotted metric name.
+     */
+    @Lock(LockType.READ)
+    public Map<String, Object> getMetrics() {
+        final Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("stream.connections", binanceClient.getConnectionCount());
+        metrics.put("stream.reconnects", binanceClient.getReconnectCount());
+        metrics.put("stream.lastGapMs", binanceClient.getLastGapMs());
+        metrics.put("stream.totalGapMs", binanceClient.getTotalGapMs());
+        metrics.put("stream.backfilledTrades", binanceClient.getBackfilledTradeCount());
+        metrics.put("stream.truncatedBackfills", binanceClient.getTruncatedBackfillCount());
+        metrics.put("stream.queuedTrades", binanceClient.getQueuedTradeCount());
+        metrics.put("stream.droppedTrades", binanceClient.getDroppedTradeCount());
+        metrics.put("pipeline.workers", workers.length);
+        metrics.put("pipeline.symbols", pipelines.size());
+        int workerQueued = 0;
+        for (PipelineWorker worker : workers) {
+            workerQueued += worker.queuedTrades();
+        }
+        metrics.put("pipeline.queuedTrades", workerQueued);
+        long gapFilledBars = 0L;
+        long correctedBars = 0L;
+        long droppedLateTrades = 0L;
+        for (SymbolPipeline pipeline : pipelines.values()) {
+            gapFilledBars += pipeline.getBarAggregator().getGapFilledBars();
+            correctedBars += pipeline.getBarAggregator().getCorrectedBars();
+            droppedLateTrades += pipeline.getBarAggregator().getDroppedLateTrades();
+        }
+        long formingPublished = 0L;
+        long formingConflated = 0L;
+        for (SymbolPipeline pipeline : pipelines.values()) {
+            formingPublished += pipeline.getFormingPublished();
+            formingConflated += pipeline.getFormingConflated();
+        }
+        metrics.put("publish.formingBars", formingPublished);
+        metrics.put("publish.formingBarsPerSecond", formingPublishRate(formingPublished));
+        metrics.put("publish.formingConflated", formingConflated);
+        metrics.putAll(publisher.getMetrics());
+        metrics.put("bars.gapFilled", gapFilledBars);
+        metrics.put("bars.corrected", correctedBars);
+        metrics.put("bars.droppedLateTrades", droppedLateTrades);
+        metrics.put("model.active", modelRegistry.getActive().getVersion());
+        metrics.put("model.swaps", modelRegistry.getSwapCount());
+        metrics.put("model.loadFailures", modelRegistry.getLoadFailureCount());
+        if (shadowScoring != null) {
+            metrics.putAll(shadowScoring.getMetrics());
+        }
+        metrics.put("klines.cacheHits", klineCache.getHitCount());
+        metrics.put("klines.cacheMisses", klineCache.getMissCount());
+        metrics.put("klines.cacheHitRatio", klineCache.getHitRatio());
+        metrics.put("klines.upstreamCalls", klineCache.getUpstreamCallCount());
+        metrics.put("klines.coalescedRequests", klineCache.getCoalescedRequestCount());
+        metrics.put("klines.cacheEntries", klineCache.getEntryCount());
+        metrics.put("klines.cacheEvictions", klineCache.getEvictionCount());
+        return metrics;
+    }
+
     @Lock(LockType.READ)
     public AutoCloseable subscribeBars(Consumer<MarketBar> consumer) {
-        return publisher.onBar(consumer);
+        return publisher.subscribeBars(null, MarketEventPublisher.ONE_SECOND_MS, consumer, null);
+    }
+
+    @Lock(LockType.READ)
+    public AutoCloseable subscribeBars(String intervalToken, Consumer<MarketBar> consumer) {
+        return subscribeBars(null, intervalToken, consumer, null);
+    }
+
+    /**
+     * Subscribes to forming and closed bars of {@code intervalToken}. Live bars exist for 1S and the
+     * {@link CascadingBarAggregator} levels (1M, 5M, 15M, 1H, 4H, 1D); any other interval falls back to 1S.
+     *
+     * <p>Bars are queued per subscriber and delivered on the publisher's delivery threads, never on the ingest
+     * path.</p>
+     *
+     * @param symbol only this symbol's bars, or {@code null} for every streamed symbol
+     * @param onDisconnect run if the subscriber falls so far behind that the overflow policy drops it; may be
+     *                     {@code null}
+     * @throws IllegalArgumentException if {@code symbol} has never been {@linkplain #isStreamed streamed}
+     */
+    @Lock(LockType.READ)
+    public AutoCloseable subscribeBars(String symbol, String intervalToken, Consumer<MarketBar> consumer, Runnable onDisconnect) {
+        return publisher.subscribeBars(symbol == null ? null : normalizeSymbol(symbol), liveTimeframeMs(intervalToken), consumer, onDisconnect);
+    }
+
+    /**
+     * The timeframe, in milliseconds, whose live bars {@link #subscribeBars(String, String, Consumer, Runnable)}
+     * delivers for {@code intervalToken}.
+     */
+    @Lock(LockType.READ)
+    public long liveTimeframeMs(String intervalToken) {
+        final long timeframeMs = ChartInterval.parse(intervalToken).getDurationMs();
+        return CascadingBarAggregator.supports(timeframeMs) ? timeframeMs : MarketEventPublisher.ONE_SECOND_MS;
+    }
+
+    /**
+     * Whether {@code symbol} is currently streamed, so its bars and signals can be subscribed to. A symbol whose
+     * streaming was stopped keeps its pipeline but is no longer streamed. Subscribing to a symbol that never streamed
+     * fails.
+     */
+    @Lock(LockType.READ)
+    public boolean isStreamed(String symbol) {
+        return binanceClient.isSubscribed(normalizeSymbol(symbol));
     }
 
     @Lock(LockType.READ)
     public AutoCloseable subscribeSignals(Consumer<AiSignal> consumer) {
-        return publisher.onSignal(consumer);
+        return subscribeSignals(null, consumer, null);
+    }
+
+    /**
+     * @param symbol only this symbol's signals, or {@code null} for every streamed symbol
+     * @throws IllegalArgumentException if {@code symbol} has never been {@linkplain #isStreamed streamed}
+     */
+    @Lock(LockType.READ)
+    public AutoCloseable subscribeSignals(String symbol, Consumer<AiSignal> consumer, Runnable onDisconnect) {
+        return publisher.subscribeSignals(symbol == null ? null : normalizeSymbol(symbol), consumer, onDisconnect);
     }
 
     private void hydrateMarketContext(String symbol) {
@@ -199,43 +446,103 @@ public class MarketAiService {
     }
 
     private void registerContextRefreshSymbols(String symbols) {
+        contextRefreshSymbols.addAll(parseSymbols(symbols));
+    }
+
+    private List<String> parseSymbols(String symbols) {
         if (symbols == null || symbols.isBlank()) {
-            return;
+            return List.of();
         }
 
+        final List<String> result = new ArrayList<>();
         for (String symbol : symbols.split(",")) {
-            final String normalizedSymbol = normalizeSymbol(symbol);
-            if (!normalizedSymbol.isBlank()) {
-                contextRefreshSymbols.add(normalizedSymbol);
+            if (!symbol.isBlank()) {
+                final String normalizedSymbol = normalizeSymbol(symbol);
+                if (!result.contains(normalizedSymbol)) {
+                    result.add(normalizedSymbol);
+                }
             }
         }
+        return result;
     }
 
     private void onTrade(MarketTrade trade) {
-        final MarketBar closed = barAggregator.ingest(trade);
-        final MarketBar forming = barAggregator.snapshotForming();
-        if (forming != null) {
-            publisher.publishBar(forming);
-        }
+        workers[Math.floorMod(trade.getSymbol().hashCode(), workers.length)].submit(trade);
+    }
+
+    private SymbolPipeline pipelineFor(String symbol) {
+        return pipelines.computeIfAbsent(symbol, key -> new SymbolPipeline(key, barHistorySize, DEFAULT_HISTORY_SIZE, barStore.open(key, LOCAL_BAR_MS), BarClosePolicyFactory.forSymbol(key), marketContextRegistry, signalScorer, guardrailsFor(key), shadowScoring, publisher));
+    }
+
+    private SignalGuardrails guardrailsFor(String symbol) {
+        final SignalGuardrails override = guardrailOverrides.get(symbol);
+        return override != null ? override : SignalGuardrails.fromSystemProperties(symbol);
+    }
 
-        if (closed == null) {
+    /**
+     * Warms a pipeline's features from exchange 1s klines when its stored history was too short. Must run before
+     * the symbol is streamed.
+     */
+    private void warmUpFromKlines(String symbol) {
+        final SymbolPipeline pipeline = pipelineFor(symbol);
+        if (pipeline.isWarmedUp()) {
             return;
         }
+        // Reaches back to the newest stored bar when it can, so the klines also fill the gap left by downtime.
+        final long newestStored = pipeline.getNewestBarTime();
+        final long gapBars = newestStored == Long.MIN_VALUE ? 0L : (System.currentTimeMillis() - newestStored) / LOCAL_BAR_MS;
+        final int count = (int) Math.max(pipeline.getWarmUpBars() + 1L,
+                Math.min(gapBars, Integer.getInteger("market.ai.bars.maxStartupBackfillBars", DEFAULT_MAX_STARTUP_BACKFILL_BARS)));
+        final List<MarketBar> history = new ArrayList<>(marketDataClient.fetchKlines(symbol, "1s", count));
+        // The newest kline is usually still forming and will be seen again as a live bar.
+        final long now = System.currentTimeMillis();
+        history.removeIf(bar -> bar.getBucketStart() + LOCAL_BAR_MS > now);
+        pipeline.warmUp(history);
+    }
 
-        synchronized (this) {
-            appendBounded(bars, closed, DEFAULT_HISTORY_SIZE);
+    private List<MarketBar> localBars(String symbol, int limit) {
+        final String normalizedSymbol = normalizeSymbol(symbol);
+        final SymbolPipeline pipeline = pipelines.get(normalizedSymbol);
+        final List<MarketBar> recent = pipeline == null ? List.of() : pipeline.getBars(limit);
+        if (recent.size() >= limit) {
+            return recent;
         }
 
-        final FeatureSnapshot features = featureEngine.onClosedBar(closed);
-        final AiSignal signal = signalEngine.evaluate(features);
-        if (signal == null) {
-            return;
+        // The store can reach further back than the in-memory ring, and covers symbols not currently streamed.
+        final MappedBarFile file = barStore.find(normalizedSymbol, LOCAL_BAR_MS);
+        return file == null || file.size() <= recent.size() ? recent : file.tail(limit);
+    }
+
+    /**
+     * Forming bars published per second since the previous metrics read.
+     */
+    private synchronized double formingPublishRate(long publishedTotal) {
+        final long now = System.nanoTime();
+        final long elapsed = now - rateSampleAtNanos;
+        final double rate = elapsed <= 0L ? 0.0 : (publishedTotal - rateSampleCount) * 1_000_000_000.0 / elapsed;
+        rateSampleCount = publishedTotal;
+        rateSampleAtNanos = now;
+        return rate;
+    }
+
+    private List<MarketBar> mergeLocalBars(String symbol, ChartInterval interval, int limit) {
+        final SymbolPipeline pipeline = pipelines.get(symbol);
+        if (pipeline == null) {
+            return List.of();
         }
+        final BarMerger merger = new BarMerger(symbol, interval.getDurationMs(), interval.getCalendarMonths(), limit);
+        pipeline.replayBars(baseBarCount(interval, limit), merger);
+        return merger.finish(System.currentTimeMillis());
+    }
 
-        synchronized (this) {
-            appendBounded(signals, signal, DEFAULT_HISTORY_SIZE);
+    private PipelineWorker[] createWorkers() {
+        final int count = Math.max(1, Integer.getInteger("market.ai.pipeline.workers", Math.max(1, Runtime.getRuntime().availableProcessors() / 2)));
+        final int inboxCapacity = Integer.getInteger("market.ai.pipeline.inboxCapacity", DEFAULT_WORKER_INBOX_CAPACITY);
+        final PipelineWorker[] created = new PipelineWorker[count];
+        for (int index = 0; index < count; index++) {
+            created[index] = new PipelineWorker(index, inboxCapacity, this::pipelineFor);
         }
-        publisher.publishSignal(signal);
+        return created;
     }
 
     private List<String> fetchExchangeSymbols() {
@@ -280,52 +587,23 @@ public class MarketAiService {
 
     private List<MarketBar> fetchKlines(String symbol, ChartInterval interval, int limit) {
         final String normalizedSymbol = normalizeSymbol(symbol);
-        final int boundedLimit = Math.max(1, Math.min(limit, 1_000));
-        final String endpoint = "https://api.binance.com/api/v3/klines?symbol="
-                + URLEncoder.encode(normalizedSymbol, StandardCharsets.UTF_8)
-                + "&interval=" + URLEncoder.encode(interval.getBinanceInterval(), StandardCharsets.UTF_8)
-                + "&limit=" + boundedLimit;
-
-        final HttpRequest request = HttpRequest.newBuilder(URI.create(endpoint))
-                .timeout(Duration.ofSeconds(8))
-                .GET()
-                .build();
-
-        try {
-            final HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-            if (response.statusCode() < 200 || response.statusCode() > 299) {
-                return List.of();
-            }
-
-            final JsonNode payload = OBJECT_MAPPER.readTree(response.body());
-            if (!payload.isArray()) {
-                return List.of();
-            }
-
-            final List<MarketBar> result = new ArrayList<>(payload.size());
-            for (JsonNode node : payload) {
-                if (!node.isArray() || node.size() < 6) {
-                    continue;
-                }
-
-                final long bucketStart = node.get(0).asLong();
-                final double open = node.get(1).asDouble();
-                final double high = node.get(2).asDouble();
-                final double low = node.get(3).asDouble();
-                final double close = node.get(4).asDouble();
-                final double volume = node.get(5).asDouble();
-                result.add(new MarketBar(normalizedSymbol, bucketStart, open, high, low, close, volume, true));
-            }
-
-            return result;
-        } catch (InterruptedException ex) {
-            Thread.currentThread().interrupt();
-            return List.of();
-        } catch (IOException ex) {
-            return List.of();
-        }
+        return klineCache.get(normalizedSymbol, interval.getDurationMs(), interval.getCalendarMonths(), limit, fetchLimit -> {
+            // Native intervals pass through unchanged so Binance's own bucket alignment (weeks, months) is kept.
+            final boolean nativeInterval = interval.getMergeFactor() == 1;
+            final BarMerger merger = new BarMerger(normalizedSymbol, nativeInterval ? 0L : interval.getDurationMs(),
+                    nativeInterval ? 0 : interval.getCalendarMonths(), fetchLimit);
+            marketDataClient.fetchKlines(normalizedSymbol, interval.getBinanceInterval(), nativeInterval ? fetchLimit : baseBarCount(interval, fetchLimit), merger);
+            return merger.finish(System.currentTimeMillis());
+        });
     }
 
+    /**
+     * Base bars needed for {@code limit} merged bars, plus one bucket's worth because the oldest bucket is usually
+     * only partly covered.
+     */
+    private int baseBarCount(ChartInterval interval, int limit) {
+        return (int) Math.min(Integer.MAX_VALUE, (Math.max(1, limit) + 1L) * interval.getMergeFactor());
+    }
 
     private String normalizeQuoteCurrency(String rawCurrency) {
         if (rawCurrency == null || rawCurrency.isBlank()) {
@@ -355,28 +633,8 @@ public class MarketAiService {
         return upper;
     }
 
-    private <T> void appendBounded(Deque<T> deque, T value, int maxSize) {
-        deque.addLast(value);
-        while (deque.size() > maxSize) {
-            deque.removeFirst();
-        }
-    }
-
-    private <T> List<T> takeLast(Deque<T> deque, int limit) {
-        return takeLast(new ArrayList<>(deque), limit);
-    }
-
     private <T> List<T> takeLast(List<T> values, int limit) {
-        final int size = values.size();
-        final int effectiveLimit = Math.max(1, limit);
-        final int skip = Math.max(0, size - effectiveLimit);
-        final List<T> snapshot = new ArrayList<>(size);
-        int index = 0;
-        for (T item : values) {
-            if (index++ >= skip) {
-                snapshot.add(item);
-            }
-        }
-        return snapshot;
+        final int skip = Math.max(0, values.size() - Math.max(1, limit));
+        return new ArrayList<>(values.subList(skip, values.size()));
     }
 }
@@ -15,6 +15,10 @@ public class MarketContextRegistry {
 
     private final Map<String, MarketContextSnapshot> snapshotsBySymbol = new ConcurrentHashMap<>();
 
+    /**
+     * Installs {@code snapshot} as the symbol's context. Registered snapshots are read without copying and scoring
+     * caches work derived from them, so a change must be published as a new snapshot rather than by mutating one.
+     */
     public void update(String symbol, MarketContextSnapshot snapshot) {
         if (symbol == null || symbol.isBlank()) {
             throw new IllegalArgumentException("symbol is required");
@@ -30,20 +34,20 @@ public class MarketContextRegistry {
         return snapshotsBySymbol.getOrDefault(normalize(symbol), MarketContextSnapshot.neutral());
     }
 
+    /**
+     * Latest snapshot for {@code symbol}, or {@code null} if none has been ingested. Unlike {@link #get(String)} this
+     * never allocates a neutral fallback.
+     */
+    public MarketContextSnapshot find(String symbol) {
+        return snapshotsBySymbol.get(normalize(symbol));
+    }
+
     public Set<String> symbols() {
         return Set.copyOf(snapshotsBySymbol.keySet());
     }
 
     public FeatureSnapshot enrich(FeatureSnapshot features) {
-        return new FeatureSnapshot(
-                features.getSymbol(),
-                features.getEventTime(),
-                features.getClose(),
-                features.getEmaFast(),
-                features.getEmaSlow(),
-                features.getRsi(),
-                get(features.getSymbol())
-        );
+        return features.withMarketContext(get(features.getSymbol()));
     }
 
     private String normalize(String symbol) {
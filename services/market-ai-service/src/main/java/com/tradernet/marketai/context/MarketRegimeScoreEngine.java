@@ -5,46 +5,97 @@ import com.tradernet.marketai.model.MarketContextSnapshot;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Produces a 0-100 market regime score from technical, on-chain, ETF, derivatives, macro, and sentiment features.
+ *
+ * <p>{@link #value(FeatureSnapshot)} computes only the number and allocates nothing; {@link #score(FeatureSnapshot)}
+ * also names the drivers, for notes.</p>
+ *
+ * <p>Only trend and RSI change from bar to bar. The weighted context part and its drivers are computed once per symbol
+ * and context snapshot, since {@link MarketContextRegistry#update} always installs a fresh snapshot instance, and
+ * every later bar of that symbol reuses them until the next update.</p>
  */
 public class MarketRegimeScoreEngine {
 
+    private final Map<String, ContextScore> contextScores = new ConcurrentHashMap<>();
+
     public MarketRegimeScore score(FeatureSnapshot features) {
-        final MarketContextSnapshot context = features.getMarketContext();
         final List<String> drivers = new ArrayList<>();
-        double score = 50.0;
+        final int boundedScore = compute(features, drivers);
+        return new MarketRegimeScore(boundedScore, regimeFor(boundedScore), drivers);
+    }
+
+    /**
+     * The bounded score alone, as {@link MarketRegimeScore#getValue()} would report it.
+     */
+    public int value(FeatureSnapshot features) {
+        return compute(features, null);
+    }
 
+    private int compute(FeatureSnapshot features, List<String> drivers) {
+        final ContextScore context = contextScore(features);
         final double trendScore = clamp((features.getEmaFast() - features.getEmaSlow()) / Math.max(features.getClose(), 1.0) * 1_000.0, -2.0, 2.0);
         final double rsiScore = rsiContribution(features.getRsi());
-        final double etfScore = clamp(context.getEtfFlowZScore(), -2.0, 2.0);
-        final double onChainScore = clamp(context.getExchangeOutflowZScore(), -2.0, 2.0);
-        final double derivativesScore = derivativesContribution(context);
-        final double valuationScore = valuationContribution(context.getMvrvZScore());
-        final double liquidityScore = clamp(context.getLiquidityGrowthZScore(), -2.0, 2.0);
-        final double sentimentScore = sentimentContribution(context.getSentimentZScore());
-
-        score += trendScore * 6.0;
-        score += rsiScore * 4.0;
-        score += etfScore * 8.0;
-        score += onChainScore * 7.0;
-        score += derivativesScore * 6.0;
-        score += valuationScore * 6.0;
-        score += liquidityScore * 7.0;
-        score += sentimentScore * 4.0;
-
-        addDriver(drivers, "trend", trendScore);
-        addDriver(drivers, "rsi", rsiScore);
-        addDriver(drivers, "etf_flows", etfScore);
-        addDriver(drivers, "exchange_outflows", onChainScore);
-        addDriver(drivers, "derivatives", derivativesScore);
-        addDriver(drivers, "mvrv_valuation", valuationScore);
-        addDriver(drivers, "macro_liquidity", liquidityScore);
-        addDriver(drivers, "sentiment", sentimentScore);
-
-        final int boundedScore = (int) Math.round(clamp(score, 0.0, 100.0));
-        return new MarketRegimeScore(boundedScore, regimeFor(boundedScore), drivers);
+        final double score = 50.0 + trendScore * 6.0 + rsiScore * 4.0 + context.score;
+
+        if (drivers != null) {
+            addDriver(drivers, "trend", trendScore);
+            addDriver(drivers, "rsi", rsiScore);
+            drivers.addAll(context.drivers);
+        }
+        return (int) Math.round(clamp(score, 0.0, 100.0));
+    }
+
+    /**
+     * The context part of the score only changes when the registry installs a new snapshot for the symbol, so it is
+     * kept per symbol and recomputed when the snapshot instance differs from the one it was computed from.
+     */
+    private ContextScore contextScore(FeatureSnapshot features) {
+        final MarketContextSnapshot context = features.getMarketContext();
+        final String symbol = features.getSymbol() == null ? "" : features.getSymbol();
+        final ContextScore cached = contextScores.get(symbol);
+        if (cached != null && cached.context == context) {
+            return cached;
+        }
+        final ContextScore computed = new ContextScore(context);
+        contextScores.put(symbol, computed);
+        return computed;
+    }
+
+    private final class ContextScore {
+
+        private final MarketContextSnapshot context;
+        private final double score;
+        private final List<String> drivers;
+
+        private ContextScore(MarketContextSnapshot context) {
+            this.context = context;
+            final double etfScore = clamp(context.getEtfFlowZScore(), -2.0, 2.0);
+            final double onChainScore = clamp(context.getExchangeOutflowZScore(), -2.0, 2.0);
+            final double derivativesScore = derivativesContribution(context);
+            final double valuationScore = valuationContribution(context.getMvrvZScore());
+            final double liquidityScore = clamp(context.getLiquidityGrowthZScore(), -2.0, 2.0);
+            final double sentimentScore = sentimentContribution(context.getSentimentZScore());
+
+            this.score = etfScore * 8.0
+                    + onChainScore * 7.0
+                    + derivativesScore * 6.0
+                    + valuationScore * 6.0
+                    + liquidityScore * 7.0
+                    + sentimentScore * 4.0;
+
+            final List<String> named = new ArrayList<>();
+            addDriver(named, "etf_flows", etfScore);
+            addDriver(named, "exchange_outflows", onChainScore);
+            addDriver(named, "derivatives", derivativesScore);
+            addDriver(named, "mvrv_valuation", valuationScore);
+            addDriver(named, "macro_liquidity", liquidityScore);
+            addDriver(named, "sentiment", sentimentScore);
+            this.drivers = List.copyOf(named);
+        }
     }
 
     private double derivativesContribution(MarketContextSnapshot context) {
@@ -3,41 +3,88 @@ package com.tradernet.marketai.engine;
 import com.tradernet.marketai.model.AiSignal;
 import com.tradernet.marketai.model.FeatureSnapshot;
 import com.tradernet.marketai.model.SignalSide;
-import com.tradernet.marketai.scoring.ScoreResult;
+import com.tradernet.marketai.scoring.ScoreDecision;
 import com.tradernet.marketai.scoring.SignalScorer;
 import com.tradernet.marketai.scoring.SignalScorerFactory;
 
 /**
  * Signal engine that applies cooldown/threshold guardrails around a pluggable scorer.
+ *
+ * <p>Bars are scored into a reused {@link ScoreDecision}; notes are only requested from the scorer for bars that
+ * become signals, so the common HOLD path allocates nothing.</p>
+ *
+ * <p>Each {@link SymbolPipeline} owns one engine, so cooldown state is per symbol and only touched by the pipeline's
+ * worker thread. Guardrails are an immutable value behind a volatile field and can be replaced from any thread; the
+ * next evaluated bar uses them.</p>
  */
 public class AiSignalEngine {
 
-    private static final double MIN_CONFIDENCE = 0.60;
-    private static final long COOLDOWN_MS = 10_000L;
-
     private final SignalScorer scorer;
+    private final ScoreDecision decision = new ScoreDecision();
+    private volatile SignalGuardrails guardrails;
     private long lastSignalAt;
+    private boolean scoredLastBar;
+    private long lastScoreNanos;
 
     public AiSignalEngine() {
         this(SignalScorerFactory.create());
     }
 
     public AiSignalEngine(SignalScorer scorer) {
+        this(scorer, SignalGuardrails.defaults());
+    }
+
+    public AiSignalEngine(SignalScorer scorer, SignalGuardrails guardrails) {
         this.scorer = scorer;
+        this.guardrails = guardrails == null ? SignalGuardrails.defaults() : guardrails;
+    }
+
+    public SignalGuardrails getGuardrails() {
+        return guardrails;
+    }
+
+    public void setGuardrails(SignalGuardrails guardrails) {
+        if (guardrails == null) {
+            throw new IllegalArgumentException("guardrails are required");
+        }
+        this.guardrails = guardrails;
+    }
+
+    /**
+     * Decision for the last evaluated bar, or {@code null} if the cooldown skipped scoring it. Reused on the next bar.
+     */
+    public ScoreDecision getLastDecision() {
+        return scoredLastBar ? decision : null;
+    }
+
+    /**
+     * Time the scorer took on the last evaluated bar.
+     */
+    public long getLastScoreNanos() {
+        return lastScoreNanos;
     }
 
-    public synchronized AiSignal evaluate(FeatureSnapshot features) {
+    /**
+     * Scores {@code features} and returns a signal if it passes the guardrails. Must only be called by the owning
+     * pipeline's thread.
+     */
+    public AiSignal evaluate(FeatureSnapshot features) {
+        final SignalGuardrails current = guardrails;
         final long now = features.getEventTime();
-        if (now - lastSignalAt < COOLDOWN_MS) {
+        scoredLastBar = false;
+        if (now - lastSignalAt < current.getCooldownMs()) {
             return null;
         }
 
-        final ScoreResult scored = scorer.score(features);
-        if (scored.getSide() == SignalSide.HOLD || scored.getConfidence() < MIN_CONFIDENCE) {
+        final long started = System.nanoTime();
+        scorer.decide(features, decision);
+        lastScoreNanos = System.nanoTime() - started;
+        scoredLastBar = true;
+        if (decision.getSide() == SignalSide.HOLD || decision.getConfidence() < current.getMinConfidence()) {
             return null;
         }
 
         lastSignalAt = now;
-        return new AiSignal(features.getSymbol(), features.getEventTime(), scored.getSide(), scored.getConfidence(), scored.getModelVersion(), scored.getNotes());
+        return new AiSignal(features.getSymbol(), features.getEventTime(), decision.getSide(), decision.getConfidence(), decision.getModelVersion(), scorer.explain(features, decision));
     }
 }
@@ -0,0 +1,74 @@
+package com.tradernet.marketai.engine;
+
+/**
+ * Average true range with Wilder smoothing.
+ */
+public class AtrIndicator implements Indicator {
+
+    private final int period;
+    private double previousClose = Double.NaN;
+    private double atr;
+
+    public AtrIndicator() {
+        this(14);
+    }
+
+    public AtrIndicator(int period) {
+        this.period = Math.max(1, period);
+    }
+
+    @Override
+    public String[] outputs() {
+        return new String[] {"atr"};
+    }
+
+    @Override
+    public int warmUpBars() {
+        return 5 * period;
+    }
+
+    @Override
+    public void update(double open, double high, double low, double close, double volume, double[] vector, int offset) {
+        if (Double.isNaN(previousClose)) {
+            atr = high - low;
+        } else {
+            final double trueRange = Math.max(high - low, Math.max(Math.abs(high - previousClose), Math.abs(low - previousClose)));
+            atr = (atr * (period - 1) + trueRange) / period;
+        }
+        previousClose = close;
+        vector[offset] = atr;
+    }
+
+    /**
+     * Computes all true ranges in one pass over the columns, then smooths them in place.
+     */
+    @Override
+    public void updateAll(double[] open, double[] high, double[] low, double[] close, double[] volume, int count,
+                          double[][] series, int offset) {
+        if (count == 0) {
+            return;
+        }
+        final double[] out = series[offset];
+        out[0] = Double.isNaN(previousClose)
+                ? high[0] - low[0]
+                : Math.max(high[0] - low[0], Math.max(Math.abs(high[0] - previousClose), Math.abs(low[0] - previousClose)));
+        for (int bar = 1; bar < count; bar++) {
+            out[bar] = Math.max(high[bar] - low[bar], Math.max(Math.abs(high[bar] - close[bar - 1]), Math.abs(low[bar] - close[bar - 1])));
+        }
+
+        double value = Double.isNaN(previousClose) ? out[0] : (atr * (period - 1) + out[0]) / period;
+        out[0] = value;
+        for (int bar = 1; bar < count; bar++) {
+            value = (value * (period - 1) + out[bar]) / period;
+            out[bar] = value;
+        }
+        atr = value;
+        previousClose = close[count - 1];
+    }
+
+    @Override
+    public void reset() {
+        previousClose = Double.NaN;
+        atr = 0.0;
+    }
+}
@@ -3,43 +3,206 @@ package com.tradernet.marketai.engine;
 import com.tradernet.marketai.model.MarketBar;
 import com.tradernet.marketai.model.MarketTrade;
 
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Builds one-second bars from trade events.
+ *
+ * <p>A bucket closes when the first trade of a later bucket arrives. Buckets skipped in between are emitted as flat
+ * bars at the previous close with zero volume (at most {@code maxGapFillBars} of them), so downstream indicator
+ * periods count seconds rather than active seconds.</p>
+ *
+ * <p>The watermark trails the newest event time by {@code allowedLatenessMs}. A trade for an already closed bucket
+ * that is still above the watermark is folded into that bar and reported as a correction; older trades are dropped
+ * and counted.</p>
+ *
+ * <p>There is a single writer. The forming bar lives in primitive fields guarded by a seqlock version, so trades in
+ * an open bucket allocate nothing and {@link #snapshotForming()} can be called from any thread without locking. A
+ * {@link MarketBar} is only created when the forming bar is read or a bucket closes.</p>
  */
 public class BarAggregator {
 
+    private final String symbol;
     private final long timeframeMs;
-    private MarketBar forming;
+    private final long allowedLatenessMs;
+    private final int maxGapFillBars;
+    private final MarketBar[] recentClosed;
+
+    // Even while stable, odd while the writer is modifying the forming bar.
+    private final AtomicLong version = new AtomicLong();
+    private boolean forming;
+    private long bucketStart;
+    private double open;
+    private double high;
+    private double low;
+    private double close;
+    private double volume;
 
-    public BarAggregator(long timeframeMs) {
+    private long maxEventTime = Long.MIN_VALUE;
+    private long closedCount;
+    private volatile long gapFilledBars;
+    private volatile long correctedBars;
+    private volatile long droppedLateTrades;
+
+    public BarAggregator(String symbol, long timeframeMs, long allowedLatenessMs, int maxGapFillBars) {
+        this.symbol = symbol;
         this.timeframeMs = timeframeMs;
+        this.allowedLatenessMs = Math.max(0L, allowedLatenessMs);
+        this.maxGapFillBars = Math.max(0, maxGapFillBars);
+        this.recentClosed = new MarketBar[(int) Math.min(3_600L, this.allowedLatenessMs / timeframeMs + 1L)];
     }
 
-    public synchronized MarketBar ingest(MarketTrade trade) {
-        final long bucketStart = (trade.getEventTime() / timeframeMs) * timeframeMs;
-        if (forming == null) {
-            forming = new MarketBar(trade.getSymbol(), bucketStart, trade.getPrice(), trade.getPrice(), trade.getPrice(), trade.getPrice(), trade.getQuantity(), false);
-            return null;
+    /**
+     * Adds a trade. Must only be called by the owning pipeline thread.
+     */
+    public void ingest(MarketTrade trade, BarSink sink) {
+        final long eventTime = trade.getEventTime();
+        final double price = trade.getPrice();
+        final double quantity = trade.getQuantity();
+        final long tradeBucket = Math.floorDiv(eventTime, timeframeMs) * timeframeMs;
+        if (eventTime > maxEventTime) {
+            maxEventTime = eventTime;
+        }
+
+        if (forming && tradeBucket == bucketStart) {
+            final long stable = beginWrite();
+            if (price > high) {
+                high = price;
+            }
+            if (price < low) {
+                low = price;
+            }
+            close = price;
+            volume += quantity;
+            endWrite(stable);
+            return;
+        }
+
+        if (forming && tradeBucket < bucketStart) {
+            correct(tradeBucket, eventTime, price, quantity, sink);
+            return;
         }
 
-        if (bucketStart > forming.getBucketStart()) {
-            final MarketBar closed = new MarketBar(forming.getSymbol(), forming.getBucketStart(), forming.getOpen(), forming.getHigh(), forming.getLow(), forming.getClose(), forming.getVolume(), true);
-            forming = new MarketBar(trade.getSymbol(), bucketStart, trade.getPrice(), trade.getPrice(), trade.getPrice(), trade.getPrice(), trade.getQuantity(), false);
-            return closed;
+        if (forming) {
+            final MarketBar closed = new MarketBar(symbol, bucketStart, open, high, low, close, volume, true);
+            openBucket(tradeBucket, price, quantity);
+            emit(closed, sink);
+            fillGap(closed, tradeBucket, sink);
+            return;
         }
+        openBucket(tradeBucket, price, quantity);
+    }
 
-        if (bucketStart < forming.getBucketStart()) {
-            return null;
+    /**
+     * Consistent copy of the forming bar, or {@code null} before the first trade. Safe to call from any thread.
+     */
+    public MarketBar snapshotForming() {
+        while (true) {
+            final long before = version.getAcquire();
+            if ((before & 1L) != 0L) {
+                Thread.onSpinWait();
+                continue;
+            }
+
+            final boolean started = forming;
+            final long start = bucketStart;
+            final double o = open;
+            final double h = high;
+            final double l = low;
+            final double c = close;
+            final double v = volume;
+
+            VarHandle.acquireFence();
+            if (version.getPlain() == before) {
+                return started ? new MarketBar(symbol, start, o, h, l, c, v, false) : null;
+            }
         }
+    }
+
+    public long getGapFilledBars() {
+        return gapFilledBars;
+    }
+
+    public long getCorrectedBars() {
+        return correctedBars;
+    }
+
+    public long getDroppedLateTrades() {
+        return droppedLateTrades;
+    }
+
+    private void openBucket(long start, double price, double quantity) {
+        final long stable = beginWrite();
+        forming = true;
+        bucketStart = start;
+        open = price;
+        high = price;
+        low = price;
+        close = price;
+        volume = quantity;
+        endWrite(stable);
+    }
+
+    private void fillGap(MarketBar closed, long nextBucketStart, BarSink sink) {
+        final long missing = (nextBucketStart - closed.getBucketStart()) / timeframeMs - 1L;
+        if (missing <= 0L || maxGapFillBars == 0) {
+            return;
+        }
+
+        // Long outages only get the most recent buckets filled, keeping the fill adjacent to the next real bar.
+        final long filled = Math.min(missing, maxGapFillBars);
+        final double price = closed.getClose();
+        for (long bucket = nextBucketStart - filled * timeframeMs; bucket < nextBucketStart; bucket += timeframeMs) {
+            emit(new MarketBar(symbol, bucket, price, price, price, price, 0.0, true), sink);
+        }
+        gapFilledBars += filled;
+    }
+
+    private void correct(long tradeBucket, long eventTime, double price, double quantity, BarSink sink) {
+        if (eventTime < maxEventTime - allowedLatenessMs) {
+            droppedLateTrades++;
+            return;
+        }
+
+        final int retained = (int) Math.min(closedCount, recentClosed.length);
+        for (int age = 0; age < retained; age++) {
+            final int slot = (int) ((closedCount - 1 - age) % recentClosed.length);
+            final MarketBar previous = recentClosed[slot];
+            if (previous.getBucketStart() == tradeBucket) {
+                final MarketBar corrected = previous.getVolume() == 0.0
+                        // A gap-filled bar only carried the previous close; its first real trade defines it.
+                        ? new MarketBar(symbol, tradeBucket, price, price, price, price, quantity, true)
+                        // Where a late trade sits among the bar's trades is unknown, so it only widens the range and adds volume.
+                        : new MarketBar(symbol, tradeBucket, previous.getOpen(), Math.max(previous.getHigh(), price),
+                        Math.min(previous.getLow(), price), previous.getClose(), previous.getVolume() + quantity, true);
+                recentClosed[slot] = corrected;
+                correctedBars++;
+                sink.onCorrection(previous, corrected);
+                return;
+            }
+            if (previous.getBucketStart() < tradeBucket) {
+                break;
+            }
+        }
+        droppedLateTrades++;
+    }
+
+    private void emit(MarketBar closed, BarSink sink) {
+        recentClosed[(int) (closedCount % recentClosed.length)] = closed;
+        closedCount++;
+        sink.onClosed(closed);
+    }
 
-        final double high = Math.max(forming.getHigh(), trade.getPrice());
-        final double low = Math.min(forming.getLow(), trade.getPrice());
-        final double volume = forming.getVolume() + trade.getQuantity();
-        forming = new MarketBar(forming.getSymbol(), forming.getBucketStart(), forming.getOpen(), high, low, trade.getPrice(), volume, false);
-        return null;
+    private long beginWrite() {
+        final long stable = version.getPlain();
+        version.setOpaque(stable + 1);
+        // Field writes must not become visible before readers can see the odd version.
+        VarHandle.storeStoreFence();
+        return stable;
     }
 
-    public synchronized MarketBar snapshotForming() {
-        return forming;
+    private void endWrite(long stable) {
+        version.setRelease(stable + 2);
     }
 }
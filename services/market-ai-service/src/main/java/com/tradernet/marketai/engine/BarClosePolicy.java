@@ -0,0 +1,21 @@
+package com.tradernet.marketai.engine;
+
+/**
+ * Decides when an information-driven bar is complete.
+ *
+ * <p>Policies are stateful and owned by a single {@link InformationBarAggregator}, so they need no synchronization.</p>
+ */
+public interface BarClosePolicy {
+
+    /**
+     * Records a trade that has just been added to the forming bar.
+     *
+     * @return {@code true} if the bar should close with this trade
+     */
+    boolean onTrade(double price, double quantity);
+
+    /**
+     * Called after a bar closes, before the next trade opens a new one.
+     */
+    void reset();
+}
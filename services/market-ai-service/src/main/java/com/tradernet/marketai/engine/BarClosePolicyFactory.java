@@ -0,0 +1,60 @@
+package com.tradernet.marketai.engine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Locale;
+
+/**
+ * Creates the signal bar policy for a symbol from {@code market.ai.bars.mode.<SYMBOL>}, falling back to
+ * {@code market.ai.bars.mode}.
+ *
+ * <p>Modes are {@code time} (the default one-second bars), {@code tick:<trades>}, {@code volume:<base qty>},
+ * {@code dollar:<quote notional>} and {@code imbalance:<initial trades>}.</p>
+ */
+public final class BarClosePolicyFactory {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BarClosePolicyFactory.class);
+
+    private BarClosePolicyFactory() {
+    }
+
+    /**
+     * @return the configured policy, or {@code null} when the symbol uses time bars
+     */
+    public static BarClosePolicy forSymbol(String symbol) {
+        final String spec = System.getProperty("market.ai.bars.mode." + symbol, System.getProperty("market.ai.bars.mode", "time"));
+        final String normalized = spec.trim().toLowerCase(Locale.ROOT);
+        final int separator = normalized.indexOf(':');
+        final String mode = separator < 0 ? normalized : normalized.substring(0, separator);
+        if ("time".equals(mode)) {
+            return null;
+        }
+
+        final double threshold;
+        try {
+            threshold = separator < 0 ? Double.NaN : Double.parseDouble(normalized.substring(separator + 1));
+        } catch (NumberFormatException ex) {
+            LOG.warn("Invalid bar mode '{}' for {}; using time bars", spec, symbol);
+            return null;
+        }
+        if (!(threshold > 0.0)) {
+            LOG.warn("Bar mode '{}' for {} needs a positive threshold; using time bars", spec, symbol);
+            return null;
+        }
+
+        switch (mode) {
+            case "tick":
+                return new TickBarPolicy((long) threshold);
+            case "volume":
+                return new VolumeBarPolicy(threshold, false);
+            case "dollar":
+                return new VolumeBarPolicy(threshold, true);
+            case "imbalance":
+                return new ImbalanceBarPolicy((long) threshold);
+            default:
+                LOG.warn("Unknown bar mode '{}' for {}; using time bars", spec, symbol);
+                return null;
+        }
+    }
+}
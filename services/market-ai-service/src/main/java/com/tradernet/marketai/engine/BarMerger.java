@@ -0,0 +1,120 @@
+package com.tradernet.marketai.engine;
+
+import com.tradernet.marketai.model.BarRecordSink;
+import com.tradernet.marketai.model.MarketBar;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Folds a time-ordered stream of base bars into wider buckets aligned to multiples of the bucket size.
+ *
+ * <p>The bucket being built is held in primitive fields, so only finished output bars are allocated, and only the
+ * newest {@code limit} of them are retained. A leading bucket whose first base bar is not on the bucket boundary is
+ * dropped, because its missing head would misstate the open.</p>
+ *
+ * <p>Calendar buckets (month and year multiples) are aligned to UTC month indexes ({@code year * 12 + month}, floored
+ * to the multiple) and labeled with the first instant of their first month, matching Binance's monthly klines.</p>
+ */
+public final class BarMerger implements BarRecordSink {
+
+    private static final long DAY_MS = 86_400_000L;
+
+    private final String symbol;
+    private final long bucketMs;
+    private final int bucketMonths;
+    private final int limit;
+    private final Deque<MarketBar> merged = new ArrayDeque<>();
+
+    private long bucketStart = Long.MIN_VALUE;
+    private long bucketEnd;
+    private boolean partialBucket;
+    private double open;
+    private double high;
+    private double low;
+    private double close;
+    private double volume;
+
+    /**
+     * @param bucketMs output bar duration; {@code 0} keeps every base bar as its own bucket
+     */
+    public BarMerger(String symbol, long bucketMs, int limit) {
+        this(symbol, bucketMs, 0, limit);
+    }
+
+    /**
+     * @param bucketMonths calendar months per output bar, taking precedence over {@code bucketMs} when positive
+     */
+    public BarMerger(String symbol, long bucketMs, int bucketMonths, int limit) {
+        this.symbol = symbol;
+        this.bucketMs = bucketMs;
+        this.bucketMonths = Math.max(0, bucketMonths);
+        this.limit = Math.max(1, limit);
+    }
+
+    @Override
+    public void accept(long baseStart, double baseOpen, double baseHigh, double baseLow, double baseClose, double baseVolume) {
+        final long aligned = align(baseStart);
+        if (aligned != bucketStart) {
+            final boolean first = bucketStart == Long.MIN_VALUE;
+            emit(true);
+            bucketStart = aligned;
+            bucketEnd = bucketEnd(aligned);
+            partialBucket = first && aligned != baseStart;
+            open = baseOpen;
+            high = baseHigh;
+            low = baseLow;
+            close = baseClose;
+            volume = baseVolume;
+            return;
+        }
+
+        high = Math.max(high, baseHigh);
+        low = Math.min(low, baseLow);
+        close = baseClose;
+        volume += baseVolume;
+    }
+
+    /**
+     * Emits the bucket still being built and returns the newest {@code limit} merged bars, oldest first.
+     */
+    public List<MarketBar> finish(long nowMs) {
+        emit((bucketMs <= 0L && bucketMonths == 0) || bucketEnd <= nowMs);
+        bucketStart = Long.MIN_VALUE;
+        return new ArrayList<>(merged);
+    }
+
+    private long align(long baseStart) {
+        if (bucketMonths > 0) {
+            final LocalDate day = LocalDate.ofEpochDay(Math.floorDiv(baseStart, DAY_MS));
+            final long monthIndex = day.getYear() * 12L + day.getMonthValue() - 1L;
+            return monthStart(Math.floorDiv(monthIndex, bucketMonths) * bucketMonths);
+        }
+        return bucketMs <= 0L ? baseStart : Math.floorDiv(baseStart, bucketMs) * bucketMs;
+    }
+
+    private long bucketEnd(long start) {
+        if (bucketMonths > 0) {
+            final LocalDate day = LocalDate.ofEpochDay(Math.floorDiv(start, DAY_MS));
+            return monthStart(day.getYear() * 12L + day.getMonthValue() - 1L + bucketMonths);
+        }
+        return bucketMs <= 0L ? start : start + bucketMs;
+    }
+
+    private static long monthStart(long monthIndex) {
+        return LocalDate.of((int) Math.floorDiv(monthIndex, 12L), (int) Math.floorMod(monthIndex, 12L) + 1, 1).toEpochDay() * DAY_MS;
+    }
+
+    private void emit(boolean closed) {
+        if (bucketStart == Long.MIN_VALUE || partialBucket) {
+            return;
+        }
+        merged.addLast(new MarketBar(symbol, bucketStart, open, high, low, close, volume, closed));
+        if (merged.size() > limit) {
+            merged.removeFirst();
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.tradernet.marketai.engine;
+
+import com.tradernet.marketai.model.BarRecordSink;
+import com.tradernet.marketai.model.BarSeries;
+import com.tradernet.marketai.model.MarketBar;
+
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed-capacity ring of closed bars for one symbol, stored as primitive columns.
+ *
+ * <p>There is a single writer. Readers never lock: they copy the requested tail between two reads of a seqlock
+ * version and retry if a write overlapped. Only the copied tail is materialized as {@link MarketBar} objects.</p>
+ */
+public final class BarRingBuffer {
+
+    private final String symbol;
+    private final int capacity;
+    private final long[] bucketStarts;
+    private final double[] opens;
+    private final double[] highs;
+    private final double[] lows;
+    private final double[] closes;
+    private final double[] volumes;
+
+    // Even while stable, odd while the writer is modifying slots.
+    private final AtomicLong version = new AtomicLong();
+    private long appended;
+
+    public BarRingBuffer(String symbol, int capacity) {
+        this.symbol = symbol;
+        this.capacity = Math.max(1, capacity);
+        this.bucketStarts = new long[this.capacity];
+        this.opens = new double[this.capacity];
+        this.highs = new double[this.capacity];
+        this.lows = new double[this.capacity];
+        this.closes = new double[this.capacity];
+        this.volumes = new double[this.capacity];
+    }
+
+    public void append(MarketBar bar) {
+        append(bar.getBucketStart(), bar.getOpen(), bar.getHigh(), bar.getLow(), bar.getClose(), bar.getVolume());
+    }
+
+    /**
+     * Appends a closed bar, overwriting the oldest one when full. Must only be called by the owning writer thread.
+     */
+    public void append(long bucketStart, double open, double high, double low, double close, double volume) {
+        final long stable = beginWrite();
+        final int slot = (int) (appended % capacity);
+        bucketStarts[slot] = bucketStart;
+        opens[slot] = open;
+        highs[slot] = high;
+        lows[slot] = low;
+        closes[slot] = close;
+        volumes[slot] = volume;
+        appended++;
+        endWrite(stable);
+    }
+
+    /**
+     * Replaces the stored bar with the same bucket start, searching back from the newest bar. Must only be called by the
+     * owning writer thread.
+     *
+     * @return {@code false} when the bucket is no longer (or not yet) in the ring
+     */
+    public boolean correct(MarketBar bar) {
+        final long oldest = Math.max(0L, appended - capacity);
+        for (long position = appended - 1; position >= oldest; position--) {
+            final int slot = (int) (position % capacity);
+            if (bucketStarts[slot] == bar.getBucketStart()) {
+                final long stable = beginWrite();
+                opens[slot] = bar.getOpen();
+                highs[slot] = bar.getHigh();
+                lows[slot] = bar.getLow();
+                closes[slot] = bar.getClose();
+                volumes[slot] = bar.getVolume();
+                endWrite(stable);
+                return true;
+            }
+            if (bucketStarts[slot] < bar.getBucketStart()) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copies the newest {@code limit} bars, oldest first.
+     */
+    public List<MarketBar> tail(int limit) {
+        final Columns tail = copyTail(limit);
+        final List<MarketBar> result = new ArrayList<>(tail.count);
+        for (int index = 0; index < tail.count; index++) {
+            result.add(new MarketBar(symbol, tail.starts[index], tail.opens[index], tail.highs[index], tail.lows[index],
+                    tail.closes[index], tail.volumes[index], true));
+        }
+        return result;
+    }
+
+    /**
+     * Streams a consistent copy of the newest {@code limit} bars, oldest first, without creating bar objects.
+     *
+     * @return number of bars handed to {@code sink}
+     */
+    public int replayTail(int limit, BarRecordSink sink) {
+        final Columns tail = copyTail(limit);
+        for (int index = 0; index < tail.count; index++) {
+            sink.accept(tail.starts[index], tail.opens[index], tail.highs[index], tail.lows[index], tail.closes[index],
+                    tail.volumes[index]);
+        }
+        return tail.count;
+    }
+
+    /**
+     * Consistent columnar copy of the newest {@code limit} bars, oldest first.
+     */
+    public BarSeries series(int limit) {
+        final Columns tail = copyTail(limit);
+        return new BarSeries(symbol, tail.starts, tail.opens, tail.highs, tail.lows, tail.closes, tail.volumes, tail.count);
+    }
+
+    public int size() {
+        while (true) {
+            final long before = version.getAcquire();
+            final long total = appended;
+            VarHandle.acquireFence();
+            if ((before & 1L) == 0L && version.getPlain() == before) {
+                return (int) Math.min(total, capacity);
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    private Columns copyTail(int limit) {
+        final int requested = Math.max(1, Math.min(limit, capacity));
+        Columns copy = new Columns(0);
+        while (true) {
+            final long before = version.getAcquire();
+            if ((before & 1L) != 0L) {
+                Thread.onSpinWait();
+                continue;
+            }
+
+            final long total = appended;
+            final int count = (int) Math.min(requested, total);
+            if (copy.starts.length < count) {
+                copy = new Columns(count);
+            }
+            for (int index = 0; index < count; index++) {
+                final int slot = (int) ((total - count + index) % capacity);
+                copy.starts[index] = bucketStarts[slot];
+                copy.opens[index] = opens[slot];
+                copy.highs[index] = highs[slot];
+                copy.lows[index] = lows[slot];
+                copy.closes[index] = closes[slot];
+                copy.volumes[index] = volumes[slot];
+            }
+            copy.count = count;
+
+            VarHandle.acquireFence();
+            if (version.getPlain() == before) {
+                return copy;
+            }
+        }
+    }
+
+    private long beginWrite() {
+        final long stable = version.getPlain();
+        version.setOpaque(stable + 1);
+        // Slot writes must not become visible before readers can see the odd version.
+        VarHandle.storeStoreFence();
+        return stable;
+    }
+
+    private void endWrite(long stable) {
+        version.setRelease(stable + 2);
+    }
+
+    private static final class Columns {
+
+        private final long[] starts;
+        private final double[] opens;
+        private final double[] highs;
+        private final double[] lows;
+        private final double[] closes;
+        private final double[] volumes;
+        private int count;
+
+        private Columns(int size) {
+            this.starts = new long[size];
+            this.opens = new double[size];
+            this.highs = new double[size];
+            this.lows = new double[size];
+            this.closes = new double[size];
+            this.volumes = new double[size];
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.tradernet.marketai.engine;
+
+import com.tradernet.marketai.model.MarketBar;
+
+/**
+ * Receives bars from a {@link BarAggregator}.
+ *
+ * <p>Corrections carry the complete replacement bar for a bucket that was already closed, so applying the same
+ * correction twice, or replacing by {@code bucketStart}, is idempotent.</p>
+ */
+public interface BarSink {
+
+    /**
+     * A bar closed in bucket order. Synthetic flat bars for buckets without trades arrive here too, with zero volume.
+     */
+    void onClosed(MarketBar bar);
+
+    /**
+     * A late trade changed an already closed bar.
+     *
+     * @param previous the bar as it was last emitted
+     * @param corrected the full replacement bar
+     */
+    void onCorrection(MarketBar previous, MarketBar corrected);
+}
@@ -0,0 +1,41 @@
+package com.tradernet.marketai.engine;
+
+/**
+ * Bollinger bandwidth: distance between the upper and lower bands divided by the middle band.
+ */
+public class BollingerBandwidthIndicator implements Indicator {
+
+    private final RollingWindow closes;
+    private final double deviations;
+
+    public BollingerBandwidthIndicator() {
+        this(20, 2.0);
+    }
+
+    public BollingerBandwidthIndicator(int period, double deviations) {
+        this.closes = new RollingWindow(period);
+        this.deviations = deviations;
+    }
+
+    @Override
+    public String[] outputs() {
+        return new String[] {"bollinger.bandwidth"};
+    }
+
+    @Override
+    public int warmUpBars() {
+        return closes.size();
+    }
+
+    @Override
+    public void update(double open, double high, double low, double close, double volume, double[] vector, int offset) {
+        closes.add(close);
+        final double middle = closes.mean();
+        vector[offset] = middle == 0.0 ? 0.0 : 2.0 * deviations * closes.standardDeviation() / middle;
+    }
+
+    @Override
+    public void reset() {
+        closes.clear();
+    }
+}
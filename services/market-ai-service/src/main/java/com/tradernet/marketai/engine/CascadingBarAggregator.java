@@ -0,0 +1,201 @@
+package com.tradernet.marketai.engine;
+
+import com.tradernet.marketai.model.BarSeries;
+import com.tradernet.marketai.model.MarketBar;
+
+/**
+ * Rolls closed one-second bars up into 1m, 5m, 15m, 1h, 4h and 1d bars.
+ *
+ * <p>Every closed second updates each level in constant time. Levels keep their forming bar in primitive fields and
+ * publish an immutable snapshot of it, so request threads can read the forming bar of any level without locking.
+ * Buckets are aligned to UTC multiples of the level duration.</p>
+ *
+ * <p>Levels are seeded from stored one-second bars ({@link #seed(BarSeries)}) so a restart resumes the buckets in
+ * progress. A level's first bucket that did not start on its first second, because the history begins part way into
+ * it, is still published as it forms but never as a closed bar, since its open and volume are incomplete.</p>
+ */
+public class CascadingBarAggregator {
+
+    public static final long[] TIMEFRAMES_MS = {
+            60_000L,
+            5L * 60_000L,
+            15L * 60_000L,
+            3_600_000L,
+            4L * 3_600_000L,
+            86_400_000L
+    };
+
+    private final String symbol;
+    private final int symbolId;
+    private final MarketEventPublisher publisher;
+    private final Level[] levels = new Level[TIMEFRAMES_MS.length];
+
+    public CascadingBarAggregator(String symbol, MarketEventPublisher publisher) {
+        this.symbol = symbol;
+        this.publisher = publisher;
+        this.symbolId = publisher.symbolId(symbol);
+        for (int index = 0; index < levels.length; index++) {
+            levels[index] = new Level(TIMEFRAMES_MS[index]);
+        }
+    }
+
+    public static boolean supports(long timeframeMs) {
+        for (long timeframe : TIMEFRAMES_MS) {
+            if (timeframe == timeframeMs) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Folds a closed one-second bar into every level, publishing the levels it closes and the updated forming bars.
+     * Must only be called by the pipeline's owning thread.
+     */
+    public void onClosedBar(MarketBar second) {
+        for (Level level : levels) {
+            final MarketBar closed = level.add(second);
+            if (closed != null) {
+                publisher.publishBar(symbolId, level.timeframeMs, closed);
+                publisher.publishClosedBar(level.timeframeMs, closed);
+            }
+            if (publisher.hasBarListeners(symbolId, level.timeframeMs)) {
+                publisher.publishBar(symbolId, level.timeframeMs, level.forming);
+            }
+        }
+    }
+
+    /**
+     * Folds stored one-second bars (oldest first) into every level without publishing anything, so the levels resume
+     * their current buckets. Must be called before the first live bar.
+     */
+    public void seed(BarSeries seconds) {
+        final long[] starts = seconds.getBucketStarts();
+        final double[] opens = seconds.getOpens();
+        final double[] highs = seconds.getHighs();
+        final double[] lows = seconds.getLows();
+        final double[] closes = seconds.getCloses();
+        final double[] volumes = seconds.getVolumes();
+        for (Level level : levels) {
+            for (int index = 0; index < seconds.size(); index++) {
+                level.fold(starts[index], opens[index], highs[index], lows[index], closes[index], volumes[index]);
+            }
+            level.publishForming();
+        }
+    }
+
+    /**
+     * Applies a corrected one-second bar to the level bars containing it, publishing each changed bar as an update.
+     * Only the forming bar and the most recently closed bar of a level can still be corrected.
+     */
+    public void onCorrection(MarketBar previous, MarketBar corrected) {
+        for (Level level : levels) {
+            final MarketBar updated = level.correct(previous, corrected);
+            if (updated != null) {
+                publisher.publishBar(symbolId, level.timeframeMs, updated);
+            }
+        }
+    }
+
+    /**
+     * Latest forming bar for {@code timeframeMs}, or {@code null} if that level has not started.
+     */
+    public MarketBar snapshotForming(long timeframeMs) {
+        for (Level level : levels) {
+            if (level.timeframeMs == timeframeMs) {
+                return level.forming;
+            }
+        }
+        return null;
+    }
+
+    private final class Level {
+
+        private final long timeframeMs;
+        private long bucketStart = Long.MIN_VALUE;
+        private double open;
+        private double high;
+        private double low;
+        private double close;
+        private double volume;
+        private boolean partial;
+        private volatile MarketBar forming;
+        private MarketBar lastClosed;
+
+        private Level(long timeframeMs) {
+            this.timeframeMs = timeframeMs;
+        }
+
+        private MarketBar add(MarketBar second) {
+            final MarketBar closed = fold(second.getBucketStart(), second.getOpen(), second.getHigh(), second.getLow(),
+                    second.getClose(), second.getVolume());
+            publishForming();
+            return closed;
+        }
+
+        /**
+         * Adds one second to the primitive state, returning the bucket it closed unless that bucket was partial.
+         */
+        private MarketBar fold(long secondStart, double secondOpen, double secondHigh, double secondLow, double secondClose,
+                               double secondVolume) {
+            final long aligned = Math.floorDiv(secondStart, timeframeMs) * timeframeMs;
+            MarketBar closed = null;
+            if (aligned != bucketStart) {
+                if (aligned < bucketStart) {
+                    return null;
+                }
+                if (bucketStart != Long.MIN_VALUE && !partial) {
+                    closed = new MarketBar(symbol, bucketStart, open, high, low, close, volume, true);
+                    lastClosed = closed;
+                }
+                // Only the first bucket can start late; later ones are entered from their first second.
+                partial = bucketStart == Long.MIN_VALUE && secondStart != aligned;
+                bucketStart = aligned;
+                open = secondOpen;
+                high = secondHigh;
+                low = secondLow;
+                volume = 0.0;
+            } else {
+                high = Math.max(high, secondHigh);
+                low = Math.min(low, secondLow);
+            }
+            close = secondClose;
+            volume += secondVolume;
+            return closed;
+        }
+
+        private void publishForming() {
+            if (bucketStart != Long.MIN_VALUE) {
+                forming = new MarketBar(symbol, bucketStart, open, high, low, close, volume, false);
+            }
+        }
+
+        private MarketBar correct(MarketBar previous, MarketBar corrected) {
+            final long aligned = Math.floorDiv(corrected.getBucketStart(), timeframeMs) * timeframeMs;
+            // A gap-filled second that opened the bucket set the open; its first real trade replaces it.
+            final boolean replacesOpen = previous.getVolume() == 0.0 && corrected.getBucketStart() == aligned;
+            final double addedVolume = corrected.getVolume() - previous.getVolume();
+            if (aligned == bucketStart) {
+                if (replacesOpen) {
+                    open = corrected.getOpen();
+                }
+                high = Math.max(high, corrected.getHigh());
+                low = Math.min(low, corrected.getLow());
+                volume += addedVolume;
+                forming = new MarketBar(symbol, bucketStart, open, high, low, close, volume, false);
+                return forming;
+            }
+            if (lastClosed != null && aligned == lastClosed.getBucketStart()) {
+                lastClosed = new MarketBar(symbol, aligned,
+                        replacesOpen ? corrected.getOpen() : lastClosed.getOpen(),
+                        Math.max(lastClosed.getHigh(), corrected.getHigh()),
+                        Math.min(lastClosed.getLow(), corrected.getLow()),
+                        lastClosed.getClose(),
+                        lastClosed.getVolume() + addedVolume,
+                        true);
+                return lastClosed;
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.tradernet.marketai.engine;
+
+import com.tradernet.marketai.model.BarSeries;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Computes feature series over historical bars, for charts overlays and model training.
+ *
+ * <p>Each symbol runs through a fresh {@link FeatureEngine} using its column-at-a-time
+ * {@link FeatureEngine#backfill(BarSeries)} path, so results match what the live engine would have produced bar by
+ * bar. Several symbols are split across the common fork/join pool.</p>
+ */
+public final class FeatureBatch {
+
+    private FeatureBatch() {
+    }
+
+    public static FeatureSeries compute(BarSeries bars) {
+        return new FeatureEngine(null, 1).backfill(bars);
+    }
+
+    /**
+     * Computes every series in parallel, returning results in input order.
+     */
+    public static List<FeatureSeries> computeAll(List<BarSeries> series) {
+        return ForkJoinPool.commonPool().invoke(new ComputeTask(series, 0, series.size()));
+    }
+
+    private static final class ComputeTask extends RecursiveTask<List<FeatureSeries>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<BarSeries> series;
+        private final int from;
+        private final int to;
+
+        private ComputeTask(List<BarSeries> series, int from, int to) {
+            this.series = series;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<FeatureSeries> compute() {
+            if (to - from <= 1) {
+                final List<FeatureSeries> result = new ArrayList<>(1);
+                if (to > from) {
+                    result.add(FeatureBatch.compute(series.get(from)));
+                }
+                return result;
+            }
+
+            final int middle = (from + to) >>> 1;
+            final ComputeTask left = new ComputeTask(series, from, middle);
+            left.fork();
+            final List<FeatureSeries> result = new ArrayList<>(new ComputeTask(series, middle, to).compute());
+            result.addAll(0, left.join());
+            return result;
+        }
+    }
+}
@@ -1,61 +1,170 @@
 package com.tradernet.marketai.engine;
 
 import com.tradernet.marketai.context.MarketContextRegistry;
+import com.tradernet.marketai.model.BarSeries;
 import com.tradernet.marketai.model.FeatureSnapshot;
 import com.tradernet.marketai.model.MarketBar;
+import com.tradernet.marketai.model.MarketContextSnapshot;
 
 /**
- * Incremental EMA/RSI feature calculator.
+ * Incremental EMA/RSI feature calculator for one symbol.
+ *
+ * <p>It also drives an {@link IndicatorRegistry}, whose outputs become the snapshot's indicator vector. State is kept
+ * in primitive fields and the registry writes into one reused vector, so indicator updates do not allocate.</p>
+ *
+ * <p>{@link #backfill(BarSeries)} advances the same state over columnar history, one feature at a time across all
+ * bars, which keeps each loop tight and avoids building bars or snapshots.</p>
+ *
+ * <p>{@link #onClosedBar(MarketBar)} returns the same flyweight {@link FeatureSnapshot} every time, refilled in place
+ * and with the symbol's market context attached by reference, so a bar costs no allocation here. Callers that keep a
+ * snapshot past the next bar must {@link FeatureSnapshot#copy()} it.</p>
+ *
+ * <p>Seeded EMAs and the Wilder RSI averages need a number of bars before they stop reflecting the seed, so
+ * {@link #isWarmedUp()} only turns true after {@code warmUpBars} bars.</p>
  */
 public class FeatureEngine {
 
     private static final int RSI_PERIOD = 14;
     private static final double ALPHA_FAST = 2.0 / (9.0 + 1.0);
     private static final double ALPHA_SLOW = 2.0 / (21.0 + 1.0);
+    // After 100 bars the seed weighs under 0.1% in EMA21 and under 1% in the RSI averages.
+    private static final int DEFAULT_WARM_UP_BARS = 100;
 
     private final MarketContextRegistry marketContextRegistry;
+    private final int warmUpBars;
+    private final IndicatorRegistry indicators;
+    private final double[] vector;
+    private final FeatureSnapshot snapshot;
+    private final MarketContextSnapshot neutralContext = MarketContextSnapshot.neutral();
 
-    private Double emaFast;
-    private Double emaSlow;
-    private Double avgGain;
-    private Double avgLoss;
-    private Double lastClose;
+    private long barCount;
+    private double emaFast;
+    private double emaSlow;
+    private double avgGain;
+    private double avgLoss;
+    private double lastClose;
 
     public FeatureEngine() {
         this(new MarketContextRegistry());
     }
 
     public FeatureEngine(MarketContextRegistry marketContextRegistry) {
+        this(marketContextRegistry, DEFAULT_WARM_UP_BARS);
+    }
+
+    public FeatureEngine(MarketContextRegistry marketContextRegistry, int warmUpBars) {
+        this(marketContextRegistry, warmUpBars, IndicatorRegistry.standard());
+    }
+
+    /**
+     * @param warmUpBars minimum bars before {@link #isWarmedUp()}; raised to what the slowest indicator needs
+     */
+    public FeatureEngine(MarketContextRegistry marketContextRegistry, int warmUpBars, IndicatorRegistry indicators) {
         this.marketContextRegistry = marketContextRegistry == null ? new MarketContextRegistry() : marketContextRegistry;
+        this.indicators = indicators;
+        this.vector = new double[indicators.width()];
+        this.snapshot = new FeatureSnapshot(null, 0L, 0.0, 0.0, 0.0, 50.0, vector, neutralContext);
+        this.warmUpBars = Math.max(Math.max(1, warmUpBars), indicators.warmUpBars());
     }
 
     public synchronized FeatureSnapshot onClosedBar(MarketBar bar) {
-        if (lastClose == null) {
-            lastClose = bar.getClose();
-            emaFast = bar.getClose();
-            emaSlow = bar.getClose();
+        final double rsi = update(bar.getOpen(), bar.getHigh(), bar.getLow(), bar.getClose(), bar.getVolume());
+        final MarketContextSnapshot context = marketContextRegistry.find(bar.getSymbol());
+        snapshot.update(bar.getSymbol(), bar.getBucketStart(), bar.getClose(), emaFast, emaSlow, rsi,
+                context == null ? neutralContext : context);
+        return snapshot;
+    }
+
+    /**
+     * Folds every bar of {@code bars} in, as repeated {@link #onClosedBar} calls would, and returns each feature's
+     * value after every bar.
+     */
+    public synchronized FeatureSeries backfill(BarSeries bars) {
+        final FeatureSeries series = new FeatureSeries(bars, indicators);
+        final int count = bars.size();
+        final double[] closes = bars.getCloses();
+        final double[] fast = series.getEmaFast();
+        final double[] slow = series.getEmaSlow();
+        final double[] rsi = series.getRsi();
+        for (int bar = 0; bar < count; bar++) {
+            rsi[bar] = advance(closes[bar]);
+            fast[bar] = emaFast;
+            slow[bar] = emaSlow;
+        }
+
+        final double[][] columns = series.indicatorColumns();
+        indicators.updateAll(bars.getOpens(), bars.getHighs(), bars.getLows(), closes, bars.getVolumes(), count, columns);
+        if (count > 0) {
+            for (int slot = 0; slot < vector.length; slot++) {
+                vector[slot] = columns[slot][count - 1];
+            }
+        }
+        return series;
+    }
+
+    /**
+     * Slot layout of the indicator vector in this engine's snapshots.
+     */
+    public IndicatorRegistry getIndicators() {
+        return indicators;
+    }
+
+    /**
+     * Clears all indicator state, as if no bar had been seen.
+     */
+    public synchronized void reset() {
+        barCount = 0L;
+        emaFast = 0.0;
+        emaSlow = 0.0;
+        avgGain = 0.0;
+        avgLoss = 0.0;
+        lastClose = 0.0;
+        indicators.reset();
+    }
+
+    /**
+     * Whether enough bars have been seen for the indicators to have converged.
+     */
+    public synchronized boolean isWarmedUp() {
+        return barCount >= warmUpBars;
+    }
+
+    public int getWarmUpBars() {
+        return warmUpBars;
+    }
+
+    /**
+     * Folds one bar into the indicators and returns the resulting RSI.
+     */
+    private double update(double open, double high, double low, double close, double volume) {
+        indicators.update(open, high, low, close, volume, vector);
+        return advance(close);
+    }
+
+    /**
+     * Folds one close into the EMA/RSI state and returns the resulting RSI.
+     */
+    private double advance(double close) {
+        if (barCount++ == 0L) {
+            lastClose = close;
+            emaFast = close;
+            emaSlow = close;
             avgGain = 0.0;
             avgLoss = 0.0;
-            return withMarketContext(new FeatureSnapshot(bar.getSymbol(), bar.getBucketStart(), bar.getClose(), emaFast, emaSlow, 50.0));
+            return 50.0;
         }
 
-        final double change = bar.getClose() - lastClose;
+        final double change = close - lastClose;
         final double gain = Math.max(change, 0.0);
         final double loss = Math.max(-change, 0.0);
 
-        emaFast = ALPHA_FAST * bar.getClose() + (1 - ALPHA_FAST) * emaFast;
-        emaSlow = ALPHA_SLOW * bar.getClose() + (1 - ALPHA_SLOW) * emaSlow;
+        emaFast = ALPHA_FAST * close + (1 - ALPHA_FAST) * emaFast;
+        emaSlow = ALPHA_SLOW * close + (1 - ALPHA_SLOW) * emaSlow;
         avgGain = ((avgGain * (RSI_PERIOD - 1)) + gain) / RSI_PERIOD;
         avgLoss = ((avgLoss * (RSI_PERIOD - 1)) + loss) / RSI_PERIOD;
-        lastClose = bar.getClose();
+        lastClose = close;
 
         final double rs = avgLoss == 0.0 ? 100.0 : avgGain / avgLoss;
-        final double rsi = avgLoss == 0.0 ? 100.0 : 100.0 - (100.0 / (1.0 + rs));
-
-        return withMarketContext(new FeatureSnapshot(bar.getSymbol(), bar.getBucketStart(), bar.getClose(), emaFast, emaSlow, rsi));
-    }
-
-    private FeatureSnapshot withMarketContext(FeatureSnapshot features) {
-        return marketContextRegistry.enrich(features);
+        return avgLoss == 0.0 ? 100.0 : 100.0 - (100.0 / (1.0 + rs));
     }
 }
@@ -0,0 +1,68 @@
+package com.tradernet.marketai.engine;
+
+import com.tradernet.marketai.model.BarSeries;
+
+/**
+ * Feature values for every bar of a {@link BarSeries}, one column per feature.
+ *
+ * <p>Indicator columns are indexed by the same slots as the snapshot vector of the {@link IndicatorRegistry} that
+ * produced them.</p>
+ */
+public final class FeatureSeries {
+
+    private final BarSeries bars;
+    private final IndicatorRegistry layout;
+    private final double[] emaFast;
+    private final double[] emaSlow;
+    private final double[] rsi;
+    private final double[][] indicators;
+
+    FeatureSeries(BarSeries bars, IndicatorRegistry layout) {
+        this.bars = bars;
+        this.layout = layout;
+        this.emaFast = new double[bars.size()];
+        this.emaSlow = new double[bars.size()];
+        this.rsi = new double[bars.size()];
+        this.indicators = new double[layout.width()][bars.size()];
+    }
+
+    public BarSeries getBars() {
+        return bars;
+    }
+
+    public int size() {
+        return bars.size();
+    }
+
+    public double[] getEmaFast() {
+        return emaFast;
+    }
+
+    public double[] getEmaSlow() {
+        return emaSlow;
+    }
+
+    public double[] getRsi() {
+        return rsi;
+    }
+
+    /**
+     * Column of the indicator output at {@code slot}.
+     */
+    public double[] getIndicator(int slot) {
+        return indicators[slot];
+    }
+
+    /**
+     * Column of the named indicator output.
+     *
+     * @throws IllegalArgumentException if the producing registry has no such output
+     */
+    public double[] getIndicator(String name) {
+        return indicators[layout.slot(name)];
+    }
+
+    double[][] indicatorColumns() {
+        return indicators;
+    }
+}
@@ -0,0 +1,53 @@
+package com.tradernet.marketai.engine;
+
+/**
+ * Tick imbalance bars: closes a bar once the signed tick count drifts further than expected.
+ *
+ * <p>Each trade is signed by the tick rule (+1 on an uptick, -1 on a downtick, the previous sign when unchanged). A
+ * bar closes when the absolute sum of signs reaches the expected bar length times the expected absolute imbalance,
+ * both tracked as exponentially weighted averages, so bars form faster when order flow turns one-sided.</p>
+ */
+public class ImbalanceBarPolicy implements BarClosePolicy {
+
+    private static final double BAR_LENGTH_ALPHA = 0.1;
+    private static final double SIGN_ALPHA = 0.01;
+    // Keeps the threshold meaningful when buys and sells balance out on average.
+    private static final double MIN_EXPECTED_IMBALANCE = 0.1;
+
+    private final double minTrades;
+    private final double maxTrades;
+    private double expectedTrades;
+    private double expectedSign;
+    private double lastPrice = Double.NaN;
+    private int lastSign = 1;
+    private long trades;
+    private long imbalance;
+
+    public ImbalanceBarPolicy(long initialTradesPerBar) {
+        this.expectedTrades = Math.max(1L, initialTradesPerBar);
+        this.minTrades = Math.max(1.0, expectedTrades / 10.0);
+        this.maxTrades = expectedTrades * 10.0;
+    }
+
+    @Override
+    public boolean onTrade(double price, double quantity) {
+        if (!Double.isNaN(lastPrice) && price != lastPrice) {
+            lastSign = price > lastPrice ? 1 : -1;
+        }
+        lastPrice = price;
+        trades++;
+        imbalance += lastSign;
+        expectedSign += SIGN_ALPHA * (lastSign - expectedSign);
+
+        final double threshold = expectedTrades * Math.max(Math.abs(expectedSign), MIN_EXPECTED_IMBALANCE);
+        return Math.abs(imbalance) >= threshold || trades >= maxTrades;
+    }
+
+    @Override
+    public void reset() {
+        expectedTrades += BAR_LENGTH_ALPHA * (trades - expectedTrades);
+        expectedTrades = Math.max(minTrades, Math.min(maxTrades, expectedTrades));
+        trades = 0L;
+        imbalance = 0L;
+    }
+}
@@ -0,0 +1,47 @@
+package com.tradernet.marketai.engine;
+
+/**
+ * Incremental technical indicator driven one closed bar at a time.
+ *
+ * <p>Indicators are stateful and owned by a single {@link IndicatorRegistry}, so they need no synchronization. Each
+ * update must run in constant time and write its outputs into the shared feature vector without allocating.</p>
+ */
+public interface Indicator {
+
+    /**
+     * Names of the values this indicator writes, in slot order.
+     */
+    String[] outputs();
+
+    /**
+     * Bars needed before the outputs stop depending on the seed values.
+     */
+    int warmUpBars();
+
+    /**
+     * Folds one closed bar in and writes {@code outputs().length} values to {@code vector} starting at {@code offset}.
+     */
+    void update(double open, double high, double low, double close, double volume, double[] vector, int offset);
+
+    /**
+     * Folds the first {@code count} bars of the columns in, exactly as {@code count} calls to {@link #update} would,
+     * writing output {@code k} of bar {@code i} to {@code series[offset + k][i]}. Implementations may override this
+     * with column-at-a-time loops, as long as the results stay identical.
+     */
+    default void updateAll(double[] open, double[] high, double[] low, double[] close, double[] volume, int count,
+                           double[][] series, int offset) {
+        final int width = outputs().length;
+        final double[] vector = new double[width];
+        for (int bar = 0; bar < count; bar++) {
+            update(open[bar], high[bar], low[bar], close[bar], volume[bar], vector, 0);
+            for (int output = 0; output < width; output++) {
+                series[offset + output][bar] = vector[output];
+            }
+        }
+    }
+
+    /**
+     * Clears all state, as if no bar had been seen.
+     */
+    void reset();
+}
@@ -0,0 +1,119 @@
+package com.tradernet.marketai.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ordered set of {@link Indicator}s writing into one dense feature vector.
+ *
+ * <p>Each indicator output gets a fixed slot, assigned in registration order, so scorers resolve a name to a slot
+ * once and read the vector by index afterwards. Registries are stateful; every {@link FeatureEngine} owns one, and
+ * registries built by {@link #standard()} always share the same layout.</p>
+ */
+public final class IndicatorRegistry {
+
+    private final Indicator[] indicators;
+    private final int[] offsets;
+    private final Map<String, Integer> slots;
+    private final int width;
+    private final int warmUpBars;
+
+    private IndicatorRegistry(List<Indicator> registered) {
+        this.indicators = registered.toArray(new Indicator[0]);
+        this.offsets = new int[indicators.length];
+        final Map<String, Integer> names = new LinkedHashMap<>();
+        int slot = 0;
+        int bars = 0;
+        for (int index = 0; index < indicators.length; index++) {
+            offsets[index] = slot;
+            for (String output : indicators[index].outputs()) {
+                if (names.put(output, slot++) != null) {
+                    throw new IllegalArgumentException("Duplicate indicator output: " + output);
+                }
+            }
+            bars = Math.max(bars, indicators[index].warmUpBars());
+        }
+        this.slots = Collections.unmodifiableMap(names);
+        this.width = slot;
+        this.warmUpBars = bars;
+    }
+
+    public static IndicatorRegistry of(Indicator... indicators) {
+        return new IndicatorRegistry(Arrays.asList(indicators));
+    }
+
+    /**
+     * MACD(12, 26, 9), Bollinger bandwidth(20, 2), ATR(14), VWAP(60), realized volatility(60), OBV and return
+     * z-score(60).
+     */
+    public static IndicatorRegistry standard() {
+        return of(
+                new MacdIndicator(),
+                new BollingerBandwidthIndicator(),
+                new AtrIndicator(),
+                new VwapIndicator(),
+                new RealizedVolatilityIndicator(),
+                new ObvIndicator(),
+                new ReturnZScoreIndicator());
+    }
+
+    /**
+     * Slot of the named output in the feature vector.
+     *
+     * @throws IllegalArgumentException if no registered indicator writes {@code name}
+     */
+    public int slot(String name) {
+        final Integer slot = slots.get(name);
+        if (slot == null) {
+            throw new IllegalArgumentException("Unknown indicator output: " + name);
+        }
+        return slot;
+    }
+
+    /**
+     * Output names in slot order.
+     */
+    public List<String> names() {
+        return new ArrayList<>(slots.keySet());
+    }
+
+    public int width() {
+        return width;
+    }
+
+    /**
+     * Bars the slowest indicator needs before its outputs have converged.
+     */
+    public int warmUpBars() {
+        return warmUpBars;
+    }
+
+    /**
+     * Folds one closed bar into every indicator, writing all outputs to {@code vector}.
+     */
+    public void update(double open, double high, double low, double close, double volume, double[] vector) {
+        for (int index = 0; index < indicators.length; index++) {
+            indicators[index].update(open, high, low, close, volume, vector, offsets[index]);
+        }
+    }
+
+    /**
+     * Folds the first {@code count} bars of the columns into every indicator, writing output slot {@code s} of bar
+     * {@code i} to {@code series[s][i]}.
+     */
+    public void updateAll(double[] open, double[] high, double[] low, double[] close, double[] volume, int count, double[][] series) {
+        for (int index = 0; index < indicators.length; index++) {
+            indicators[index].updateAll(open, high, low, close, volume, count, series, offsets[index]);
+        }
+    }
+
+    public void reset() {
+        for (Indicator indicator : indicators) {
+            indicator.reset();
+        }
+    }
+}
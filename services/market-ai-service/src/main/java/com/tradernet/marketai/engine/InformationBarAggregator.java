@@ -0,0 +1,58 @@
+package com.tradernet.marketai.engine;
+
+import com.tradernet.marketai.model.MarketBar;
+import com.tradernet.marketai.model.MarketTrade;
+
+/**
+ * Builds bars that close on trading activity rather than wall-clock time, as decided by a {@link BarClosePolicy}.
+ *
+ * <p>A bar's {@code bucketStart} is the event time of its first trade. Only the owning pipeline thread may call
+ * {@link #ingest(MarketTrade)}.</p>
+ */
+public class InformationBarAggregator {
+
+    private final String symbol;
+    private final BarClosePolicy policy;
+
+    private boolean forming;
+    private long bucketStart;
+    private double open;
+    private double high;
+    private double low;
+    private double close;
+    private double volume;
+
+    public InformationBarAggregator(String symbol, BarClosePolicy policy) {
+        this.symbol = symbol;
+        this.policy = policy;
+    }
+
+    /**
+     * Adds a trade to the forming bar.
+     *
+     * @return the bar closed by this trade, or {@code null}
+     */
+    public MarketBar ingest(MarketTrade trade) {
+        final double price = trade.getPrice();
+        if (!forming) {
+            forming = true;
+            bucketStart = trade.getEventTime();
+            open = price;
+            high = price;
+            low = price;
+            volume = 0.0;
+        } else {
+            high = Math.max(high, price);
+            low = Math.min(low, price);
+        }
+        close = price;
+        volume += trade.getQuantity();
+
+        if (!policy.onTrade(price, trade.getQuantity())) {
+            return null;
+        }
+        policy.reset();
+        forming = false;
+        return new MarketBar(symbol, bucketStart, open, high, low, close, volume, true);
+    }
+}
@@ -0,0 +1,62 @@
+package com.tradernet.marketai.engine;
+
+/**
+ * MACD line (fast EMA minus slow EMA of the close), its signal EMA, and the histogram between them.
+ */
+public class MacdIndicator implements Indicator {
+
+    private final int slowPeriod;
+    private final int signalPeriod;
+    private final double fastAlpha;
+    private final double slowAlpha;
+    private final double signalAlpha;
+    private boolean seeded;
+    private double fastEma;
+    private double slowEma;
+    private double signalEma;
+
+    public MacdIndicator() {
+        this(12, 26, 9);
+    }
+
+    public MacdIndicator(int fastPeriod, int slowPeriod, int signalPeriod) {
+        this.slowPeriod = slowPeriod;
+        this.signalPeriod = signalPeriod;
+        this.fastAlpha = 2.0 / (fastPeriod + 1.0);
+        this.slowAlpha = 2.0 / (slowPeriod + 1.0);
+        this.signalAlpha = 2.0 / (signalPeriod + 1.0);
+    }
+
+    @Override
+    public String[] outputs() {
+        return new String[] {"macd", "macd.signal", "macd.histogram"};
+    }
+
+    @Override
+    public int warmUpBars() {
+        return 3 * slowPeriod + signalPeriod;
+    }
+
+    @Override
+    public void update(double open, double high, double low, double close, double volume, double[] vector, int offset) {
+        if (!seeded) {
+            seeded = true;
+            fastEma = close;
+            slowEma = close;
+            signalEma = 0.0;
+        } else {
+            fastEma += fastAlpha * (close - fastEma);
+            slowEma += slowAlpha * (close - slowEma);
+        }
+        final double macd = fastEma - slowEma;
+        signalEma += signalAlpha * (macd - signalEma);
+        vector[offset] = macd;
+        vector[offset + 1] = signalEma;
+        vector[offset + 2] = macd - signalEma;
+    }
+
+    @Override
+    public void reset() {
+        seeded = false;
+    }
+}
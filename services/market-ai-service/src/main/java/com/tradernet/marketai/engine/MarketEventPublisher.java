@@ -2,22 +2,127 @@ package com.tradernet.marketai.engine;
 
 import com.tradernet.marketai.model.AiSignal;
 import com.tradernet.marketai.model.MarketBar;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
 import java.util.function.Consumer;
 
 /**
  * In-process pub/sub for bar and signal updates.
+ *
+ * <p>Bar listeners subscribe per timeframe. Bar updates carry both forming and closed bars; closed-bar listeners only
+ * see bars once they are final.</p>
+ *
+ * <p>Symbols are interned to dense ids ({@link #symbolId}) that pipelines resolve once. Subscribers may name a symbol,
+ * in which case they sit in that symbol's topic, one list per timeframe, and a publish only touches the subscribers of
+ * its own topic plus the all-symbol ones.</p>
+ *
+ * <p>{@code on*} listeners run synchronously on the publishing pipeline thread and must be quick; they are meant for
+ * in-process stages such as the kline cache. Consumers outside the pipeline, such as WebSocket sessions, use the
+ * {@code subscribe*} methods instead: each subscriber gets its own bounded queue, drained on a delivery pool, so
+ * publishing only enqueues and never waits on a consumer. When a queue is full the configured {@link OverflowPolicy}
+ * applies. Subscribers may block, for example on a currency rate lookup, so the pool starts a thread for each drain
+ * up to its cap rather than sharing a fixed few; a blocked subscriber then only holds its own thread until the cap is
+ * reached. Idle delivery threads stop after {@value #DELIVERY_KEEP_ALIVE_SECONDS} seconds.</p>
  */
-public class MarketEventPublisher {
+public class MarketEventPublisher implements AutoCloseable {
 
-    private final List<Consumer<MarketBar>> barListeners = new CopyOnWriteArrayList<>();
+    public static final long ONE_SECOND_MS = 1_000L;
+
+    private static final Logger LOG = LoggerFactory.getLogger(MarketEventPublisher.class);
+    private static final int DEFAULT_QUEUE_CAPACITY = 1_024;
+    private static final int DEFAULT_DELIVERY_THREADS = 16;
+    private static final long DELIVERY_KEEP_ALIVE_SECONDS = 30L;
+    private static final BiPredicate<MarketBar, MarketBar> SAME_BAR = (queued, next) ->
+            queued.getBucketStart() == next.getBucketStart() && Objects.equals(queued.getSymbol(), next.getSymbol());
+
+    private final Map<Long, List<Consumer<MarketBar>>> barListeners = new ConcurrentHashMap<>();
+    private final Map<Long, List<Consumer<MarketBar>>> closedBarListeners = new ConcurrentHashMap<>();
     private final List<Consumer<AiSignal>> signalListeners = new CopyOnWriteArrayList<>();
+    private final Map<String, Integer> symbolIds = new ConcurrentHashMap<>();
+    private volatile SymbolTopics[] topics = new SymbolTopics[0];
+    private final Set<SubscriberQueue<?>> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong subscriberIds = new AtomicLong();
+    private final LongAdder disconnects = new LongAdder();
+    private final int queueCapacity;
+    private final OverflowPolicy overflowPolicy;
+    private final ThreadPoolExecutor deliveryExecutor;
+
+    public MarketEventPublisher() {
+        this(DEFAULT_QUEUE_CAPACITY, OverflowPolicy.CONFLATE_LATEST, DEFAULT_DELIVERY_THREADS);
+    }
+
+    /**
+     * @param queueCapacity events each subscriber may have queued before {@code overflowPolicy} applies
+     * @param deliveryThreads most threads draining subscriber queues at once
+     */
+    public MarketEventPublisher(int queueCapacity, OverflowPolicy overflowPolicy, int deliveryThreads) {
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.overflowPolicy = overflowPolicy;
+        final AtomicInteger threadIndex = new AtomicInteger();
+        final int threads = Math.max(1, deliveryThreads);
+        // Core threads are started per submitted drain until the cap, and time out like extra threads would.
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, DELIVERY_KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                    final Thread thread = new Thread(runnable, "market-publish-" + threadIndex.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        this.deliveryExecutor = executor;
+    }
+
+    /**
+     * Builds the publisher from {@code market.ai.publish.queueCapacity} (default 1024),
+     * {@code market.ai.publish.overflowPolicy} ({@code conflate-latest} by default) and
+     * {@code market.ai.publish.deliveryThreads} (default 16).
+     */
+    public static MarketEventPublisher fromSystemProperties() {
+        final String policy = System.getProperty("market.ai.publish.overflowPolicy", "conflate-latest");
+        OverflowPolicy overflowPolicy;
+        try {
+            overflowPolicy = OverflowPolicy.parse(policy);
+        } catch (IllegalArgumentException ex) {
+            LOG.warn("Unknown subscriber overflow policy '{}'; using conflate-latest", policy);
+            overflowPolicy = OverflowPolicy.CONFLATE_LATEST;
+        }
+        return new MarketEventPublisher(Integer.getInteger("market.ai.publish.queueCapacity", DEFAULT_QUEUE_CAPACITY),
+                overflowPolicy, Integer.getInteger("market.ai.publish.deliveryThreads", DEFAULT_DELIVERY_THREADS));
+    }
 
     public AutoCloseable onBar(Consumer<MarketBar> listener) {
-        barListeners.add(listener);
-        return () -> barListeners.remove(listener);
+        return onBar(ONE_SECOND_MS, listener);
+    }
+
+    /**
+     * Listens for forming and closed bar updates of one timeframe.
+     */
+    public AutoCloseable onBar(long timeframeMs, Consumer<MarketBar> listener) {
+        return register(barListeners, timeframeMs, listener);
+    }
+
+    /**
+     * Listens for bars of one timeframe as they close, after they have been stored.
+     */
+    public AutoCloseable onClosedBar(long timeframeMs, Consumer<MarketBar> listener) {
+        return register(closedBarListeners, timeframeMs, listener);
     }
 
     public AutoCloseable onSignal(Consumer<AiSignal> listener) {
@@ -25,15 +130,236 @@ public class MarketEventPublisher {
         return () -> signalListeners.remove(listener);
     }
 
-    public void publishBar(MarketBar bar) {
-        for (Consumer<MarketBar> listener : barListeners) {
-            listener.accept(bar);
+    /**
+     * Dense id for {@code symbol} (trimmed, upper-cased), assigned on first use. Publishers resolve it once and pass it
+     * with every event.
+     */
+    public int symbolId(String symbol) {
+        final String key = normalize(symbol);
+        final Integer known = symbolIds.get(key);
+        return known != null ? known : intern(key);
+    }
+
+    /**
+     * Whether a publisher has taken an id for {@code symbol}, so events for it can arrive.
+     */
+    public boolean isKnownSymbol(String symbol) {
+        return symbolIds.containsKey(normalize(symbol));
+    }
+
+    /**
+     * Queues forming and closed bar updates of one timeframe for {@code subscriber}, delivered on the delivery pool.
+     *
+     * @param symbol only this symbol's bars, or {@code null} for every symbol
+     * @param timeframeMs 1s or a {@link CascadingBarAggregator} timeframe when {@code symbol} is given
+     * @param onDisconnect run if the {@link OverflowPolicy#DISCONNECT} policy drops the subscriber; may be {@code null}
+     * @throws IllegalArgumentException if {@code symbol} is not {@linkplain #isKnownSymbol known}; subscribers never
+     *                                  assign ids, so clients cannot grow the topic table
+     */
+    public AutoCloseable subscribeBars(String symbol, long timeframeMs, Consumer<MarketBar> subscriber, Runnable onDisconnect) {
+        if (symbol == null) {
+            final List<Consumer<MarketBar>> listeners = barListeners.computeIfAbsent(timeframeMs, ignored -> new CopyOnWriteArrayList<>());
+            return enqueue(listeners, "bars.*." + timeframeMs, subscriber, onDisconnect, SAME_BAR);
+        }
+        final int slot = timeframeSlot(timeframeMs);
+        if (slot < 0) {
+            throw new IllegalArgumentException("No live bars for timeframe " + timeframeMs + "ms");
+        }
+        final SymbolTopics topic = topics[knownSymbolId(symbol)];
+        return enqueue(topic.bars.get(slot), "bars." + topic.symbol + "." + timeframeMs, subscriber, onDisconnect, SAME_BAR);
+    }
+
+    /**
+     * Queues signals for {@code subscriber}, delivered on the delivery pool. Signals never conflate; under
+     * {@link OverflowPolicy#CONFLATE_LATEST} a full queue drops its oldest signal.
+     *
+     * @param symbol only this symbol's signals, or {@code null} for every symbol
+     * @throws IllegalArgumentException if {@code symbol} is not {@linkplain #isKnownSymbol known}
+     */
+    public AutoCloseable subscribeSignals(String symbol, Consumer<AiSignal> subscriber, Runnable onDisconnect) {
+        if (symbol == null) {
+            return enqueue(signalListeners, "signals.*", subscriber, onDisconnect, null);
+        }
+        final SymbolTopics topic = topics[knownSymbolId(symbol)];
+        return enqueue(topic.signals, "signals." + topic.symbol, subscriber, onDisconnect, null);
+    }
+
+    /**
+     * Whether anyone receives {@code symbolId}'s bar updates of {@code timeframeMs}, so forming bars need building.
+     */
+    public boolean hasBarListeners(int symbolId, long timeframeMs) {
+        final List<Consumer<MarketBar>> listeners = barListeners.get(timeframeMs);
+        if (listeners != null && !listeners.isEmpty()) {
+            return true;
         }
+        final List<Consumer<MarketBar>> topic = topicBars(symbolId, timeframeMs);
+        return topic != null && !topic.isEmpty();
     }
 
-    public void publishSignal(AiSignal signal) {
+    public void publishBar(int symbolId, MarketBar bar) {
+        publishBar(symbolId, ONE_SECOND_MS, bar);
+    }
+
+    public void publishBar(int symbolId, long timeframeMs, MarketBar bar) {
+        dispatch(barListeners.get(timeframeMs), bar);
+        dispatch(topicBars(symbolId, timeframeMs), bar);
+    }
+
+    public void publishClosedBar(long timeframeMs, MarketBar bar) {
+        dispatch(closedBarListeners.get(timeframeMs), bar);
+    }
+
+    public void publishSignal(int symbolId, AiSignal signal) {
         for (Consumer<AiSignal> listener : signalListeners) {
             listener.accept(signal);
         }
+        final SymbolTopics[] current = topics;
+        if (symbolId >= 0 && symbolId < current.length) {
+            for (Consumer<AiSignal> listener : current[symbolId].signals) {
+                listener.accept(signal);
+            }
+        }
+    }
+
+    /**
+     * Subscriber queue depth and lag, keyed by dotted metric name.
+     */
+    public Map<String, Object> getMetrics() {
+        final Map<String, Object> metrics = new LinkedHashMap<>();
+        long queued = 0L;
+        long maxLagMs = 0L;
+        long dropped = 0L;
+        long conflated = 0L;
+        final Map<String, Object> perSubscriber = new LinkedHashMap<>();
+        for (SubscriberQueue<?> subscriber : subscribers) {
+            final String prefix = "publish.subscriber." + subscriber.getId() + ".";
+            final int depth = subscriber.queued();
+            final long lagMs = subscriber.lagMs();
+            queued += depth;
+            maxLagMs = Math.max(maxLagMs, lagMs);
+            dropped += subscriber.dropped();
+            conflated += subscriber.conflated();
+            perSubscriber.put(prefix + "topic", subscriber.getTopic());
+            perSubscriber.put(prefix + "queued", depth);
+            perSubscriber.put(prefix + "lagMs", lagMs);
+            perSubscriber.put(prefix + "delivered", subscriber.delivered());
+            perSubscriber.put(prefix + "dropped", subscriber.dropped());
+            perSubscriber.put(prefix + "conflated", subscriber.conflated());
+        }
+        metrics.put("publish.subscribers", subscribers.size());
+        metrics.put("publish.deliveryThreads", deliveryExecutor.getPoolSize());
+        metrics.put("publish.symbols", topics.length);
+        metrics.put("publish.overflowPolicy", overflowPolicy.name());
+        metrics.put("publish.queuedEvents", queued);
+        metrics.put("publish.maxLagMs", maxLagMs);
+        metrics.put("publish.droppedEvents", dropped);
+        metrics.put("publish.conflatedEvents", conflated);
+        metrics.put("publish.disconnects", disconnects.sum());
+        metrics.putAll(perSubscriber);
+        return metrics;
+    }
+
+    @Override
+    public void close() {
+        deliveryExecutor.shutdown();
+        try {
+            deliveryExecutor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        subscribers.forEach(SubscriberQueue::close);
+    }
+
+    private <T> AutoCloseable enqueue(List<Consumer<T>> listeners, String topic, Consumer<T> subscriber, Runnable onDisconnect,
+                                      BiPredicate<T, T> sameKey) {
+        final SubscriberQueue<T> queue = new SubscriberQueue<>(subscriberIds.incrementAndGet(), topic, subscriber,
+                onDisconnect, queueCapacity, overflowPolicy, sameKey, deliveryExecutor);
+        queue.onCancel(() -> {
+            listeners.remove(queue);
+            subscribers.remove(queue);
+            disconnects.increment();
+        });
+        subscribers.add(queue);
+        listeners.add(queue);
+        return () -> {
+            listeners.remove(queue);
+            subscribers.remove(queue);
+            queue.close();
+        };
+    }
+
+    private synchronized int intern(String symbol) {
+        final Integer known = symbolIds.get(symbol);
+        if (known != null) {
+            return known;
+        }
+        final SymbolTopics[] grown = Arrays.copyOf(topics, topics.length + 1);
+        grown[topics.length] = new SymbolTopics(symbol);
+        // The topic must be visible before its id is handed out.
+        topics = grown;
+        symbolIds.put(symbol, topics.length - 1);
+        return topics.length - 1;
+    }
+
+    private int knownSymbolId(String symbol) {
+        final Integer known = symbolIds.get(normalize(symbol));
+        if (known == null) {
+            throw new IllegalArgumentException("No events are published for symbol " + symbol);
+        }
+        return known;
+    }
+
+    private List<Consumer<MarketBar>> topicBars(int symbolId, long timeframeMs) {
+        final SymbolTopics[] current = topics;
+        final int slot = timeframeSlot(timeframeMs);
+        return symbolId < 0 || symbolId >= current.length || slot < 0 ? null : current[symbolId].bars.get(slot);
+    }
+
+    /**
+     * Index of {@code timeframeMs} among 1s and the {@link CascadingBarAggregator} timeframes, or -1.
+     */
+    private static int timeframeSlot(long timeframeMs) {
+        if (timeframeMs == ONE_SECOND_MS) {
+            return 0;
+        }
+        for (int index = 0; index < CascadingBarAggregator.TIMEFRAMES_MS.length; index++) {
+            if (CascadingBarAggregator.TIMEFRAMES_MS[index] == timeframeMs) {
+                return index + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static String normalize(String symbol) {
+        return symbol == null ? "" : symbol.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private AutoCloseable register(Map<Long, List<Consumer<MarketBar>>> registry, long timeframeMs, Consumer<MarketBar> listener) {
+        final List<Consumer<MarketBar>> listeners = registry.computeIfAbsent(timeframeMs, ignored -> new CopyOnWriteArrayList<>());
+        listeners.add(listener);
+        return () -> listeners.remove(listener);
+    }
+
+    private void dispatch(List<Consumer<MarketBar>> listeners, MarketBar bar) {
+        if (listeners == null) {
+            return;
+        }
+        for (Consumer<MarketBar> listener : listeners) {
+            listener.accept(bar);
+        }
+    }
+
+    private static final class SymbolTopics {
+
+        private final String symbol;
+        private final List<List<Consumer<MarketBar>>> bars = new ArrayList<>();
+        private final List<Consumer<AiSignal>> signals = new CopyOnWriteArrayList<>();
+
+        private SymbolTopics(String symbol) {
+            this.symbol = symbol;
+            for (int slot = 0; slot <= CascadingBarAggregator.TIMEFRAMES_MS.length; slot++) {
+                bars.add(new CopyOnWriteArrayList<>());
+            }
+        }
     }
 }
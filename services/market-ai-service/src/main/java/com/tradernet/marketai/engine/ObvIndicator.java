@@ -0,0 +1,39 @@
+package com.tradernet.marketai.engine;
+
+/**
+ * On-balance volume: running volume total, added on up closes and subtracted on down closes.
+ */
+public class ObvIndicator implements Indicator {
+
+    private double previousClose = Double.NaN;
+    private double obv;
+
+    @Override
+    public String[] outputs() {
+        return new String[] {"obv"};
+    }
+
+    @Override
+    public int warmUpBars() {
+        return 1;
+    }
+
+    @Override
+    public void update(double open, double high, double low, double close, double volume, double[] vector, int offset) {
+        if (!Double.isNaN(previousClose)) {
+            if (close > previousClose) {
+                obv += volume;
+            } else if (close < previousClose) {
+                obv -= volume;
+            }
+        }
+        previousClose = close;
+        vector[offset] = obv;
+    }
+
+    @Override
+    public void reset() {
+        previousClose = Double.NaN;
+        obv = 0.0;
+    }
+}
@@ -0,0 +1,35 @@
+package com.tradernet.marketai.engine;
+
+import java.util.Locale;
+
+/**
+ * What a subscriber queue does with a new event when it is already full.
+ */
+public enum OverflowPolicy {
+
+    /**
+     * Evicts the oldest queued event to make room.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Replaces the queued update for the same key (a bar's symbol and bucket) with the new one, so a slow subscriber
+     * skips intermediate states. Evicts the oldest event when nothing queued shares the key.
+     */
+    CONFLATE_LATEST,
+
+    /**
+     * Cancels the subscription and notifies the subscriber, which is expected to reconnect.
+     */
+    DISCONNECT;
+
+    /**
+     * Parses {@code drop-oldest}, {@code conflate-latest} or {@code disconnect}, ignoring case and accepting
+     * {@code _} for {@code -}.
+     *
+     * @throws IllegalArgumentException for any other value
+     */
+    public static OverflowPolicy parse(String value) {
+        return valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,110 @@
+package com.tradernet.marketai.engine;
+
+import com.tradernet.marketai.model.MarketTrade;
+import com.tradernet.marketai.stream.TradeRingBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Worker thread owning the symbol pipelines pinned to it by symbol hash.
+ *
+ * <p>Trades arrive through a single-producer ring fed by the stream pipeline thread. Every symbol is processed by
+ * exactly one worker, so per-symbol state needs no locking and symbols spread across cores. The worker also flushes
+ * conflated forming bars every few milliseconds so the last update of a quiet symbol is not held back.</p>
+ */
+public class PipelineWorker {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PipelineWorker.class);
+
+    private static final int DRAIN_BATCH = 256;
+    private static final long IDLE_PARK_NANOS = 100_000L;
+    private static final long FULL_PARK_NANOS = 50_000L;
+    private static final long FORMING_FLUSH_NANOS = 10_000_000L;
+
+    private final TradeRingBuffer inbox;
+    private final Function<String, SymbolPipeline> pipelineResolver;
+    private final Map<String, SymbolPipeline> pinnedPipelines = new HashMap<>();
+    private final MarketTrade holder = new MarketTrade();
+    private final Consumer<MarketTrade> dispatcher = this::dispatch;
+    private final Thread thread;
+
+    private volatile boolean running = true;
+
+    public PipelineWorker(int index, int inboxCapacity, Function<String, SymbolPipeline> pipelineResolver) {
+        this.inbox = new TradeRingBuffer(inboxCapacity);
+        this.pipelineResolver = pipelineResolver;
+        this.thread = new Thread(this::run, "market-pipeline-" + index);
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Hands a trade to this worker. Called by the single stream pipeline thread; when the inbox is full the caller is
+     * parked, which in turn withholds socket demand upstream.
+     */
+    public void submit(MarketTrade trade) {
+        while (!inbox.offer(trade)) {
+            if (!running) {
+                return;
+            }
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+    }
+
+    public int queuedTrades() {
+        return inbox.size();
+    }
+
+    private void dispatch(MarketTrade trade) {
+        SymbolPipeline pipeline = pinnedPipelines.get(trade.getSymbol());
+        if (pipeline == null) {
+            pipeline = pipelineResolver.apply(trade.getSymbol());
+            pinnedPipelines.put(trade.getSymbol(), pipeline);
+        }
+
+        try {
+            pipeline.onTrade(trade);
+        } catch (RuntimeException ex) {
+            LOG.error("Market pipeline failed for {}", trade.getSymbol(), ex);
+        }
+    }
+
+    private void run() {
+        long nextFlush = System.nanoTime();
+        while (running) {
+            final int drained = inbox.drain(holder, dispatcher, DRAIN_BATCH);
+            final long now = System.nanoTime();
+            if (now - nextFlush >= 0L) {
+                flushForming(now);
+                nextFlush = now + FORMING_FLUSH_NANOS;
+            }
+            if (drained == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private void flushForming(long now) {
+        for (SymbolPipeline pipeline : pinnedPipelines.values()) {
+            try {
+                pipeline.flushForming(now);
+            } catch (RuntimeException ex) {
+                LOG.error("Forming bar publish failed for {}", pipeline.getSymbol(), ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.tradernet.marketai.engine;
+
+/**
+ * Realized volatility: square root of the summed squared log returns over the last {@code period} bars, not
+ * annualized.
+ */
+public class RealizedVolatilityIndicator implements Indicator {
+
+    private final RollingWindow squaredReturns;
+    private double previousClose = Double.NaN;
+
+    public RealizedVolatilityIndicator() {
+        this(60);
+    }
+
+    public RealizedVolatilityIndicator(int period) {
+        this.squaredReturns = new RollingWindow(period);
+    }
+
+    @Override
+    public String[] outputs() {
+        return new String[] {"realizedVolatility"};
+    }
+
+    @Override
+    public int warmUpBars() {
+        return squaredReturns.size() + 1;
+    }
+
+    @Override
+    public void update(double open, double high, double low, double close, double volume, double[] vector, int offset) {
+        if (previousClose > 0.0 && close > 0.0) {
+            final double logReturn = Math.log(close / previousClose);
+            squaredReturns.add(logReturn * logReturn);
+        }
+        previousClose = close;
+        // The window re-zeroes its sum once only zero returns are left, so a flat market reports exactly zero.
+        vector[offset] = Math.sqrt(Math.max(0.0, squaredReturns.sum()));
+    }
+
+    @Override
+    public void reset() {
+        squaredReturns.clear();
+        previousClose = Double.NaN;
+    }
+}
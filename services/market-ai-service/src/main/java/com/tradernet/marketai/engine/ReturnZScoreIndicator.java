@@ -0,0 +1,47 @@
+package com.tradernet.marketai.engine;
+
+/**
+ * Z-score of the latest log return against the mean and standard deviation of the last {@code period} returns.
+ */
+public class ReturnZScoreIndicator implements Indicator {
+
+    private final RollingWindow returns;
+    private double previousClose = Double.NaN;
+
+    public ReturnZScoreIndicator() {
+        this(60);
+    }
+
+    public ReturnZScoreIndicator(int period) {
+        this.returns = new RollingWindow(period);
+    }
+
+    @Override
+    public String[] outputs() {
+        return new String[] {"returnZScore"};
+    }
+
+    @Override
+    public int warmUpBars() {
+        return returns.size() + 1;
+    }
+
+    @Override
+    public void update(double open, double high, double low, double close, double volume, double[] vector, int offset) {
+        double zScore = 0.0;
+        if (previousClose > 0.0 && close > 0.0) {
+            final double logReturn = Math.log(close / previousClose);
+            returns.add(logReturn);
+            final double deviation = returns.standardDeviation();
+            zScore = deviation == 0.0 ? 0.0 : (logReturn - returns.mean()) / deviation;
+        }
+        previousClose = close;
+        vector[offset] = zScore;
+    }
+
+    @Override
+    public void reset() {
+        returns.clear();
+        previousClose = Double.NaN;
+    }
+}
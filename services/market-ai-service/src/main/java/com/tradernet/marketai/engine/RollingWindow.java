@@ -0,0 +1,99 @@
+package com.tradernet.marketai.engine;
+
+/**
+ * Fixed-size window of doubles with constant-time sum, mean and variance.
+ *
+ * <p>Variance uses a sliding Welford update rather than a running sum of squares, which would lose most of its
+ * precision on prices in the tens of thousands.</p>
+ *
+ * <p>The running sum drifts by rounding as values are evicted, so a window that only holds zeros could report a tiny
+ * nonzero sum. Nonzero values are counted, and the sum and moments are reset to exactly zero whenever none are left.</p>
+ */
+final class RollingWindow {
+
+    private final double[] values;
+    private int next;
+    private int count;
+    private int nonZero;
+    private double sum;
+    private double mean;
+    private double m2;
+
+    RollingWindow(int size) {
+        this.values = new double[Math.max(1, size)];
+    }
+
+    /**
+     * Adds {@code value}, evicting the oldest value once the window is full.
+     */
+    void add(double value) {
+        if (count < values.length) {
+            count++;
+            final double delta = value - mean;
+            mean += delta / count;
+            m2 += delta * (value - mean);
+        } else {
+            final double evicted = values[next];
+            final double previousMean = mean;
+            mean += (value - evicted) / count;
+            m2 += (value - evicted) * (value - mean + evicted - previousMean);
+            sum -= evicted;
+            if (evicted != 0.0) {
+                nonZero--;
+            }
+        }
+        sum += value;
+        if (value != 0.0) {
+            nonZero++;
+        } else if (nonZero == 0) {
+            sum = 0.0;
+            mean = 0.0;
+            m2 = 0.0;
+        }
+        values[next] = value;
+        next = next + 1 == values.length ? 0 : next + 1;
+    }
+
+    int size() {
+        return values.length;
+    }
+
+    int count() {
+        return count;
+    }
+
+    /**
+     * Number of values in the window that are not zero.
+     */
+    int nonZeroCount() {
+        return nonZero;
+    }
+
+    boolean isFull() {
+        return count == values.length;
+    }
+
+    double sum() {
+        return sum;
+    }
+
+    double mean() {
+        return mean;
+    }
+
+    /**
+     * Population standard deviation of the values in the window.
+     */
+    double standardDeviation() {
+        return count == 0 ? 0.0 : Math.sqrt(Math.max(0.0, m2 / count));
+    }
+
+    void clear() {
+        next = 0;
+        count = 0;
+        nonZero = 0;
+        sum = 0.0;
+        mean = 0.0;
+        m2 = 0.0;
+    }
+}
@@ -0,0 +1,239 @@
+package com.tradernet.marketai.engine;
+
+import com.tradernet.marketai.model.FeatureSnapshot;
+import com.tradernet.marketai.model.SignalSide;
+import com.tradernet.marketai.scoring.ModelRegistry;
+import com.tradernet.marketai.scoring.ScoreDecision;
+import com.tradernet.marketai.scoring.SignalScorer;
+import com.tradernet.marketai.scoring.SignalScorerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs candidate scorers on the same features as the live scorer, off the signal path.
+ *
+ * <p>Pipelines hand each evaluated bar to {@link #submit}, which copies the flyweight features and queues them on a
+ * single daemon thread with a bounded queue. When the queue is full the bar is dropped and counted, so a slow
+ * candidate never delays live signals. For every bar the stage records each candidate's side, confidence and
+ * scoring time next to the live decision, keeps agreement and latency totals, and appends one tab-separated line to
+ * the comparison log.</p>
+ */
+public class ShadowScoringStage implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ShadowScoringStage.class);
+    private static final int DEFAULT_QUEUE_CAPACITY = 4_096;
+
+    private final Candidate[] candidates;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder dropped = new LongAdder();
+    private final Writer log;
+    private final ScoreDecision decision = new ScoreDecision();
+    private volatile long evaluatedBars;
+    private volatile long liveScoredBars;
+    private volatile long liveNanos;
+
+    public ShadowScoringStage(List<String> names, List<SignalScorer> scorers, int queueCapacity, Path logFile) {
+        this.candidates = new Candidate[scorers.size()];
+        for (int index = 0; index < candidates.length; index++) {
+            candidates[index] = new Candidate(names.get(index), scorers.get(index));
+        }
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+            final Thread thread = new Thread(runnable, "market-ai-shadow-scoring");
+            thread.setDaemon(true);
+            return thread;
+        }, (runnable, pool) -> dropped.increment());
+        this.log = openLog(logFile, names);
+    }
+
+    /**
+     * Builds the stage from {@code market.ai.shadow.scorers} (comma-separated scorer types, as for
+     * {@code market.ai.scorer}), or returns {@code null} when no candidates are configured.
+     */
+    public static ShadowScoringStage fromSystemProperties(ModelRegistry models) {
+        final String configured = System.getProperty("market.ai.shadow.scorers", "");
+        final List<String> names = new ArrayList<>();
+        final List<SignalScorer> scorers = new ArrayList<>();
+        for (String type : configured.split(",")) {
+            final String name = type.trim().toLowerCase(Locale.ROOT);
+            if (!name.isEmpty()) {
+                names.add(name);
+                scorers.add(SignalScorerFactory.create(name, models));
+            }
+        }
+        if (scorers.isEmpty()) {
+            return null;
+        }
+
+        final String logFile = System.getProperty("market.ai.shadow.log");
+        final Path path = logFile == null || logFile.isBlank()
+                ? Paths.get(System.getProperty("jboss.server.data.dir", System.getProperty("java.io.tmpdir")), "market-ai", "shadow", "shadow-scores.tsv")
+                : Paths.get(logFile);
+        return new ShadowScoringStage(names, scorers,
+                Integer.getInteger("market.ai.shadow.queueCapacity", DEFAULT_QUEUE_CAPACITY), path);
+    }
+
+    /**
+     * Queues {@code features} for the candidates. Never blocks.
+     *
+     * @param live the live decision, or {@code null} if the live scorer skipped this bar
+     * @param liveScoreNanos time the live scorer took
+     */
+    public void submit(FeatureSnapshot features, ScoreDecision live, long liveScoreNanos) {
+        if (executor.getQueue().remainingCapacity() == 0) {
+            dropped.increment();
+            return;
+        }
+        final FeatureSnapshot copy = features.copy();
+        final SignalSide liveSide = live == null ? null : live.getSide();
+        final double liveConfidence = live == null ? 0.0 : live.getConfidence();
+        executor.execute(() -> evaluate(copy, liveSide, liveConfidence, liveScoreNanos));
+    }
+
+    public Map<String, Object> getMetrics() {
+        final Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("shadow.evaluatedBars", evaluatedBars);
+        metrics.put("shadow.droppedBars", dropped.sum());
+        metrics.put("shadow.queuedBars", executor.getQueue().size());
+        metrics.put("shadow.live.avgLatencyNs", liveScoredBars == 0L ? 0L : liveNanos / liveScoredBars);
+        for (Candidate candidate : candidates) {
+            final String prefix = "shadow." + candidate.name + ".";
+            metrics.put(prefix + "agreement", candidate.compared == 0L ? 0.0 : (double) candidate.agreed / candidate.compared);
+            metrics.put(prefix + "avgLatencyNs", candidate.evaluated == 0L ? 0L : candidate.nanos / candidate.evaluated);
+            metrics.put(prefix + "signals", candidate.signals);
+        }
+        return metrics;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        if (log != null) {
+            try {
+                log.close();
+            } catch (IOException ex) {
+                LOG.debug("Closing shadow log failed", ex);
+            }
+        }
+    }
+
+    private void evaluate(FeatureSnapshot features, SignalSide liveSide, double liveConfidence, long liveScoreNanos) {
+        final StringBuilder line = log == null ? null : new StringBuilder(64 + candidates.length * 32);
+        if (line != null) {
+            line.append(features.getEventTime()).append('\t').append(features.getSymbol());
+            appendDecision(line, liveSide, liveConfidence, liveScoreNanos);
+        }
+        if (liveSide != null) {
+            liveScoredBars++;
+            liveNanos += liveScoreNanos;
+        }
+
+        for (Candidate candidate : candidates) {
+            final long started = System.nanoTime();
+            try {
+                candidate.scorer.decide(features, decision);
+            } catch (RuntimeException ex) {
+                LOG.warn("Shadow scorer {} failed", candidate.name, ex);
+                decision.set(SignalSide.HOLD, 0.0, "error");
+            }
+            final long elapsed = System.nanoTime() - started;
+            candidate.evaluated++;
+            candidate.nanos += elapsed;
+            if (decision.getSide() != SignalSide.HOLD) {
+                candidate.signals++;
+            }
+            if (liveSide != null) {
+                candidate.compared++;
+                if (decision.getSide() == liveSide) {
+                    candidate.agreed++;
+                }
+            }
+            if (line != null) {
+                appendDecision(line, decision.getSide(), decision.getConfidence(), elapsed);
+            }
+        }
+        evaluatedBars++;
+        writeLine(line);
+    }
+
+    private void appendDecision(StringBuilder line, SignalSide side, double confidence, long nanos) {
+        line.append('\t');
+        if (side == null) {
+            line.append('-');
+            return;
+        }
+        line.append(side.name().charAt(0)).append(':').append(Math.round(confidence * 10_000.0) / 10_000.0).append(':').append(nanos);
+    }
+
+    private void writeLine(StringBuilder line) {
+        if (line == null) {
+            return;
+        }
+        try {
+            log.write(line.append('\n').toString());
+            // Batches writes while bars are queued and flushes once the stage catches up.
+            if (executor.getQueue().isEmpty()) {
+                log.flush();
+            }
+        } catch (IOException ex) {
+            LOG.warn("Writing shadow log failed", ex);
+        }
+    }
+
+    private static Writer openLog(Path path, List<String> names) {
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            final boolean created = !Files.exists(path);
+            final BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            if (created) {
+                // Each decision column is side initial:confidence:scoring nanos, or '-' when not scored.
+                writer.write("eventTime\tsymbol\tlive\t" + String.join("\t", names) + "\n");
+                writer.flush();
+            }
+            return writer;
+        } catch (IOException ex) {
+            LOG.warn("Cannot open shadow log {}; comparisons are kept in metrics only", path, ex);
+            return null;
+        }
+    }
+
+    private static final class Candidate {
+
+        private final String name;
+        private final SignalScorer scorer;
+        private volatile long evaluated;
+        private volatile long nanos;
+        private volatile long signals;
+        private volatile long compared;
+        private volatile long agreed;
+
+        private Candidate(String name, SignalScorer scorer) {
+            this.name = name;
+            this.scorer = scorer;
+        }
+    }
+}
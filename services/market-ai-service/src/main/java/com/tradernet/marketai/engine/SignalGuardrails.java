@@ -0,0 +1,83 @@
+package com.tradernet.marketai.engine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Immutable confidence threshold and cooldown applied by {@link AiSignalEngine} to one symbol.
+ *
+ * <p>Engines hold the current instance in a volatile field, so a new one can be swapped in at any time without
+ * locking the signal path.</p>
+ */
+public final class SignalGuardrails {
+
+    public static final double DEFAULT_MIN_CONFIDENCE = 0.60;
+    public static final long DEFAULT_COOLDOWN_MS = 10_000L;
+
+    private static final Logger LOG = LoggerFactory.getLogger(SignalGuardrails.class);
+
+    private final double minConfidence;
+    private final long cooldownMs;
+
+    public SignalGuardrails(double minConfidence, long cooldownMs) {
+        if (!(minConfidence >= 0.0 && minConfidence <= 1.0)) {
+            throw new IllegalArgumentException("minConfidence must be between 0 and 1");
+        }
+        if (cooldownMs < 0L) {
+            throw new IllegalArgumentException("cooldownMs must not be negative");
+        }
+        this.minConfidence = minConfidence;
+        this.cooldownMs = cooldownMs;
+    }
+
+    public static SignalGuardrails defaults() {
+        return new SignalGuardrails(DEFAULT_MIN_CONFIDENCE, DEFAULT_COOLDOWN_MS);
+    }
+
+    /**
+     * Reads {@code market.ai.signal.minConfidence.<SYMBOL>} and {@code market.ai.signal.cooldownMs.<SYMBOL>}, falling
+     * back to {@code market.ai.signal.minConfidence} and {@code market.ai.signal.cooldownMs}. Invalid values are
+     * logged and replaced by the defaults.
+     */
+    public static SignalGuardrails fromSystemProperties(String symbol) {
+        final String confidence = property("market.ai.signal.minConfidence", symbol);
+        final String cooldown = property("market.ai.signal.cooldownMs", symbol);
+        try {
+            return new SignalGuardrails(
+                    confidence == null ? DEFAULT_MIN_CONFIDENCE : Double.parseDouble(confidence.trim()),
+                    cooldown == null ? DEFAULT_COOLDOWN_MS : Long.parseLong(cooldown.trim()));
+        } catch (IllegalArgumentException ex) {
+            LOG.warn("Invalid signal guardrails for {} (minConfidence={}, cooldownMs={}); using defaults", symbol, confidence, cooldown);
+            return defaults();
+        }
+    }
+
+    public double getMinConfidence() {
+        return minConfidence;
+    }
+
+    public long getCooldownMs() {
+        return cooldownMs;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof SignalGuardrails)) {
+            return false;
+        }
+        final SignalGuardrails that = (SignalGuardrails) other;
+        return Double.compare(minConfidence, that.minConfidence) == 0 && cooldownMs == that.cooldownMs;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Double.hashCode(minConfidence) + Long.hashCode(cooldownMs);
+    }
+
+    private static String property(String name, String symbol) {
+        return System.getProperty(name + "." + symbol, System.getProperty(name));
+    }
+}
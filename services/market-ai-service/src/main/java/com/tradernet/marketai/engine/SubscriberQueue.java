@@ -0,0 +1,230 @@
+package com.tradernet.marketai.engine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+
+/**
+ * One subscriber's bounded event queue, drained on a shared delivery executor.
+ *
+ * <p>{@link #accept} is called by publishing threads and only holds the queue's monitor long enough to store the
+ * event, so a slow subscriber never holds up the publisher; on overflow the {@link OverflowPolicy} decides what is
+ * lost. At most one drain task per queue is scheduled at a time, so events reach the subscriber in order, and a drain
+ * hands the thread back after {@link #DRAIN_BATCH} events so busy subscribers cannot starve the others.</p>
+ */
+final class SubscriberQueue<T> implements Consumer<T>, Runnable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SubscriberQueue.class);
+    private static final int DRAIN_BATCH = 64;
+
+    private final long id;
+    private final String topic;
+    private final Consumer<T> subscriber;
+    private final Runnable onDisconnect;
+    private final OverflowPolicy policy;
+    private final BiPredicate<T, T> sameKey;
+    private final Executor executor;
+    private final Object[] events;
+    private final long[] enqueuedNanos;
+
+    private Runnable cancel;
+    private int head;
+    private int size;
+    private boolean scheduled;
+    private boolean closed;
+    private long dropped;
+    private long conflated;
+    private volatile long delivered;
+
+    /**
+     * @param sameKey whether two events update the same thing, for {@link OverflowPolicy#CONFLATE_LATEST}; {@code null}
+     *                if events never replace each other
+     * @param onDisconnect run on the executor when {@link OverflowPolicy#DISCONNECT} cancels the subscription; may be
+     *                     {@code null}
+     */
+    SubscriberQueue(long id, String topic, Consumer<T> subscriber, Runnable onDisconnect, int capacity, OverflowPolicy policy,
+                    BiPredicate<T, T> sameKey, Executor executor) {
+        this.id = id;
+        this.topic = topic;
+        this.subscriber = subscriber;
+        this.onDisconnect = onDisconnect;
+        this.policy = policy;
+        this.sameKey = sameKey;
+        this.executor = executor;
+        this.events = new Object[Math.max(1, capacity)];
+        this.enqueuedNanos = new long[events.length];
+    }
+
+    long getId() {
+        return id;
+    }
+
+    String getTopic() {
+        return topic;
+    }
+
+    /**
+     * Sets what removes this queue from the publisher, once it has been registered.
+     */
+    synchronized void onCancel(Runnable cancel) {
+        this.cancel = cancel;
+    }
+
+    @Override
+    public void accept(T event) {
+        final boolean schedule;
+        boolean disconnected = false;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (size == events.length) {
+                if (policy == OverflowPolicy.DISCONNECT) {
+                    close();
+                    dropped++;
+                    disconnected = true;
+                    schedule = false;
+                } else if (policy == OverflowPolicy.CONFLATE_LATEST && replace(event)) {
+                    // A drain is already scheduled for the non-empty queue.
+                    return;
+                } else {
+                    take();
+                    dropped++;
+                    schedule = append(event);
+                }
+            } else {
+                schedule = append(event);
+            }
+        }
+        if (disconnected) {
+            disconnect();
+        } else if (schedule) {
+            execute(this);
+        }
+    }
+
+    @Override
+    public void run() {
+        for (int count = 0; count < DRAIN_BATCH; count++) {
+            final T event;
+            synchronized (this) {
+                if (size == 0 || closed) {
+                    scheduled = false;
+                    return;
+                }
+                event = take();
+            }
+            try {
+                subscriber.accept(event);
+            } catch (RuntimeException ex) {
+                LOG.warn("Subscriber {} ({}) failed to handle an event", id, topic, ex);
+            }
+            delivered++;
+        }
+        execute(this);
+    }
+
+    /**
+     * Stops delivery and discards whatever is still queued.
+     */
+    synchronized void close() {
+        closed = true;
+        for (int index = 0; index < size; index++) {
+            events[(head + index) % events.length] = null;
+        }
+        size = 0;
+    }
+
+    synchronized int queued() {
+        return size;
+    }
+
+    /**
+     * How long the oldest queued event has been waiting, in milliseconds.
+     */
+    synchronized long lagMs() {
+        return size == 0 ? 0L : (System.nanoTime() - enqueuedNanos[head]) / 1_000_000L;
+    }
+
+    synchronized long dropped() {
+        return dropped;
+    }
+
+    synchronized long conflated() {
+        return conflated;
+    }
+
+    long delivered() {
+        return delivered;
+    }
+
+    synchronized boolean isClosed() {
+        return closed;
+    }
+
+    private boolean append(T event) {
+        final int tail = (head + size) % events.length;
+        events[tail] = event;
+        enqueuedNanos[tail] = System.nanoTime();
+        size++;
+        final boolean schedule = !scheduled;
+        scheduled = true;
+        return schedule;
+    }
+
+    /**
+     * Puts {@code event} in the place of the newest queued event with the same key, keeping that event's position and
+     * enqueue time so ordering against other keys and the lag stay right.
+     */
+    private boolean replace(T event) {
+        if (sameKey == null) {
+            return false;
+        }
+        for (int index = size - 1; index >= 0; index--) {
+            final int slot = (head + index) % events.length;
+            @SuppressWarnings("unchecked")
+            final T queued = (T) events[slot];
+            if (sameKey.test(queued, event)) {
+                events[slot] = event;
+                conflated++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void disconnect() {
+        final Runnable remove;
+        synchronized (this) {
+            remove = cancel;
+        }
+        if (remove != null) {
+            remove.run();
+        }
+        if (onDisconnect != null) {
+            execute(onDisconnect);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T take() {
+        final T event = (T) events[head];
+        events[head] = null;
+        head = (head + 1) % events.length;
+        size--;
+        return event;
+    }
+
+    private void execute(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException ex) {
+            // The publisher is shutting down; nothing more will be delivered.
+            close();
+        }
+    }
+}
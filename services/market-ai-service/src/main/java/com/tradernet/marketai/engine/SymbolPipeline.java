@@ -0,0 +1,330 @@
+package com.tradernet.marketai.engine;
+
+import com.tradernet.marketai.context.MarketContextRegistry;
+import com.tradernet.marketai.model.AiSignal;
+import com.tradernet.marketai.model.BarRecordSink;
+import com.tradernet.marketai.model.BarSeries;
+import com.tradernet.marketai.model.FeatureSnapshot;
+import com.tradernet.marketai.model.MarketBar;
+import com.tradernet.marketai.model.MarketTrade;
+import com.tradernet.marketai.scoring.SignalScorer;
+import com.tradernet.marketai.store.MappedBarFile;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aggregation, feature, cooldown and history state for one symbol.
+ *
+ * <p>{@link #onTrade(MarketTrade)} is only ever called from the {@link PipelineWorker} the symbol is pinned to, so the
+ * hot path never contends with other symbols. Closed bars live in a lock-free {@link BarRingBuffer}; only the rarely
+ * written signal history synchronizes, and only on this pipeline.</p>
+ *
+ * <p>Each closed second is also rolled up by a {@link CascadingBarAggregator}, so 1m to 1d bars are published live.</p>
+ *
+ * <p>Signals are evaluated on closed one-second bars unless a {@link BarClosePolicy} is configured, in which case
+ * tick, volume, dollar or imbalance bars from an {@link InformationBarAggregator} feed the feature and signal engines
+ * instead. Charts and storage always use time bars.</p>
+ *
+ * <p>Forming one-second bars are conflated: at most one update per {@code market.ai.publish.formingIntervalMs} is
+ * published, always carrying the latest state, and every closed bar is published as a final update.</p>
+ *
+ * <p>Late trades correct already closed seconds in the ring, the bar file, the cascade and bar subscribers, which all
+ * replace by bucket start. Features and signals are not re-evaluated for corrected bars.</p>
+ *
+ * <p>When a {@link MappedBarFile} is supplied, closed bars are also appended to it and the ring is reloaded from its
+ * tail on construction, so history survives restarts.</p>
+ *
+ * <p>When a {@link ShadowScoringStage} is configured, every scored bar is also handed to it, after the live decision
+ * and without waiting.</p>
+ *
+ * <p>Feature state is warmed from the newest {@code market.ai.features.warmUpBars} stored time bars on construction,
+ * and no signal is scored until the indicators have converged. The stored tail only counts as a warm start if its
+ * newest bar is recent (within {@code market.ai.features.maxWarmStartAgeMs}, three warm-up periods by default); after a
+ * longer outage the pipeline stays cold until {@link #warmUp(List)} supplies fresh history. Pipelines using signal bars
+ * warm up on live bars only, since stored time bars would not match their sampling.</p>
+ */
+public class SymbolPipeline {
+
+    private static final long DEFAULT_ALLOWED_LATENESS_MS = 1_000L;
+    private static final int DEFAULT_MAX_GAP_FILL_BARS = 300;
+    private static final long DEFAULT_FORMING_INTERVAL_MS = 100L;
+    private static final int DEFAULT_WARM_UP_BARS = 100;
+
+    private final String symbol;
+    private final int signalHistorySize;
+    private final BarAggregator barAggregator;
+    private final BarSink timeBarSink = new TimeBarSink();
+    private final CascadingBarAggregator cascade;
+    private final InformationBarAggregator signalBars;
+    private final FeatureEngine featureEngine;
+    private final AiSignalEngine signalEngine;
+    private final ShadowScoringStage shadowScoring;
+    private final MarketEventPublisher publisher;
+    private final int symbolId;
+
+    private final BarRingBuffer bars;
+    private final MappedBarFile barFile;
+    private final Deque<AiSignal> signals = new ArrayDeque<>();
+
+    private final long formingIntervalNanos = TimeUnit.MILLISECONDS.toNanos(
+            Long.getLong("market.ai.publish.formingIntervalMs", DEFAULT_FORMING_INTERVAL_MS));
+    private long lastFormingPublishNanos;
+    private boolean formingPending;
+    private volatile long formingPublished;
+    private volatile long formingConflated;
+
+    public SymbolPipeline(String symbol,
+                          int barHistorySize,
+                          int signalHistorySize,
+                          MappedBarFile barFile,
+                          BarClosePolicy signalBarPolicy,
+                          MarketContextRegistry marketContextRegistry,
+                          SignalScorer scorer,
+                          SignalGuardrails guardrails,
+                          ShadowScoringStage shadowScoring,
+                          MarketEventPublisher publisher) {
+        this.symbol = symbol;
+        this.bars = new BarRingBuffer(symbol, barHistorySize);
+        this.barAggregator = new BarAggregator(symbol, MarketEventPublisher.ONE_SECOND_MS,
+                Long.getLong("market.ai.bars.allowedLatenessMs", DEFAULT_ALLOWED_LATENESS_MS),
+                Integer.getInteger("market.ai.bars.maxGapFillBars", DEFAULT_MAX_GAP_FILL_BARS));
+        this.barFile = barFile;
+        this.signalHistorySize = signalHistorySize;
+        this.featureEngine = new FeatureEngine(marketContextRegistry,
+                Integer.getInteger("market.ai.features.warmUpBars", DEFAULT_WARM_UP_BARS));
+        this.signalEngine = new AiSignalEngine(scorer, guardrails);
+        this.shadowScoring = shadowScoring;
+        this.publisher = publisher;
+        this.symbolId = publisher.symbolId(symbol);
+        this.cascade = new CascadingBarAggregator(symbol, publisher);
+        this.signalBars = signalBarPolicy == null ? null : new InformationBarAggregator(symbol, signalBarPolicy);
+        if (barFile != null) {
+            barFile.replayTail(bars.capacity(), bars::append);
+        }
+        // The widest cascade level spans a day of seconds; older bars cannot be in any level's current bucket.
+        final long[] timeframesMs = CascadingBarAggregator.TIMEFRAMES_MS;
+        final long widestTimeframeMs = timeframesMs[timeframesMs.length - 1];
+        cascade.seed(bars.series((int) (widestTimeframeMs / MarketEventPublisher.ONE_SECOND_MS)));
+        final long maxWarmStartAgeMs = Long.getLong("market.ai.features.maxWarmStartAgeMs",
+                3L * featureEngine.getWarmUpBars() * MarketEventPublisher.ONE_SECOND_MS);
+        final long newestBarTime = getNewestBarTime();
+        if (signalBars == null && newestBarTime != Long.MIN_VALUE
+                && System.currentTimeMillis() - newestBarTime <= maxWarmStartAgeMs) {
+            featureEngine.backfill(bars.series(featureEngine.getWarmUpBars()));
+        }
+    }
+
+    /**
+     * Bucket start of the newest stored time bar, or {@link Long#MIN_VALUE} if there is none.
+     */
+    public long getNewestBarTime() {
+        final BarSeries newest = bars.series(1);
+        return newest.size() == 0 ? Long.MIN_VALUE : newest.getBucketStarts()[0];
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public void onTrade(MarketTrade trade) {
+        barAggregator.ingest(trade, timeBarSink);
+        // The forming bar is only materialized when someone is listening for it.
+        if (publisher.hasBarListeners(symbolId, MarketEventPublisher.ONE_SECOND_MS)) {
+            if (formingPending) {
+                formingConflated++;
+            }
+            formingPending = true;
+            flushForming(System.nanoTime());
+        }
+
+        if (signalBars != null) {
+            final MarketBar signalBar = signalBars.ingest(trade);
+            if (signalBar != null) {
+                evaluate(signalBar);
+            }
+        }
+    }
+
+    /**
+     * Publishes the latest forming bar if an update is pending and the conflation interval has passed. Called after
+     * every trade and periodically by the owning worker so a quiet symbol still sends its final state.
+     */
+    public void flushForming(long nowNanos) {
+        if (!formingPending || nowNanos - lastFormingPublishNanos < formingIntervalNanos) {
+            return;
+        }
+        formingPending = false;
+        lastFormingPublishNanos = nowNanos;
+        final MarketBar forming = barAggregator.snapshotForming();
+        if (forming != null) {
+            formingPublished++;
+            publisher.publishBar(symbolId, forming);
+        }
+    }
+
+    public long getFormingPublished() {
+        return formingPublished;
+    }
+
+    public long getFormingConflated() {
+        return formingConflated;
+    }
+
+    /**
+     * Whether feature state has converged, either from history or from live bars. Always {@code true} for
+     * signal-bar pipelines once enough signal bars have closed.
+     */
+    public boolean isWarmedUp() {
+        return featureEngine.isWarmedUp();
+    }
+
+    /**
+     * Number of time bars {@link #warmUp(List)} needs for feature state to converge.
+     */
+    public int getWarmUpBars() {
+        return featureEngine.getWarmUpBars();
+    }
+
+    /**
+     * Stores the bars of {@code history} (oldest first, closed) that are newer than the stored tail, filling the gap
+     * left by downtime and rolling them into the 1m-1d levels, and rebuilds feature state from {@code history},
+     * replacing whatever the stored bars provided. Only safe before trades for this symbol are streamed. Signal-bar
+     * pipelines only take the bars, not the features.
+     */
+    public void warmUp(List<MarketBar> history) {
+        if (history.isEmpty()) {
+            return;
+        }
+        long newest = getNewestBarTime();
+        for (MarketBar bar : history) {
+            if (bar.getBucketStart() > newest) {
+                bars.append(bar);
+                if (barFile != null) {
+                    barFile.append(bar);
+                }
+                cascade.onClosedBar(bar);
+                newest = bar.getBucketStart();
+            }
+        }
+        if (signalBars != null) {
+            return;
+        }
+        featureEngine.reset();
+        featureEngine.backfill(BarSeries.of(symbol, history));
+    }
+
+    public SignalGuardrails getSignalGuardrails() {
+        return signalEngine.getGuardrails();
+    }
+
+    /**
+     * Replaces the confidence threshold and cooldown; safe from any thread and applied from the next bar.
+     */
+    public void setSignalGuardrails(SignalGuardrails guardrails) {
+        signalEngine.setGuardrails(guardrails);
+    }
+
+    public BarAggregator getBarAggregator() {
+        return barAggregator;
+    }
+
+    public List<MarketBar> getBars(int limit) {
+        return bars.tail(limit);
+    }
+
+    /**
+     * Forming bar for the one-second timeframe or any {@link CascadingBarAggregator} level, or {@code null}.
+     */
+    public MarketBar getFormingBar(long timeframeMs) {
+        return timeframeMs == MarketEventPublisher.ONE_SECOND_MS
+                ? barAggregator.snapshotForming()
+                : cascade.snapshotForming(timeframeMs);
+    }
+
+    /**
+     * Streams up to the newest {@code limit} closed bars to {@code sink}, oldest first.
+     *
+     * @return number of bars replayed
+     */
+    public int replayBars(int limit, BarRecordSink sink) {
+        return bars.replayTail(limit, sink);
+    }
+
+    public synchronized List<AiSignal> getSignals(int limit) {
+        return takeLast(signals, limit);
+    }
+
+    private void evaluate(MarketBar bar) {
+        final FeatureSnapshot features = featureEngine.onClosedBar(bar);
+        if (!featureEngine.isWarmedUp()) {
+            return;
+        }
+        final AiSignal signal = signalEngine.evaluate(features);
+        if (shadowScoring != null) {
+            shadowScoring.submit(features, signalEngine.getLastDecision(), signalEngine.getLastScoreNanos());
+        }
+        if (signal == null) {
+            return;
+        }
+
+        synchronized (this) {
+            appendBounded(signals, signal);
+        }
+        publisher.publishSignal(symbolId, signal);
+    }
+
+    private void appendBounded(Deque<AiSignal> deque, AiSignal value) {
+        deque.addLast(value);
+        while (deque.size() > signalHistorySize) {
+            deque.removeFirst();
+        }
+    }
+
+    private List<AiSignal> takeLast(Deque<AiSignal> deque, int limit) {
+        final int skip = Math.max(0, deque.size() - Math.max(1, limit));
+        final List<AiSignal> snapshot = new ArrayList<>(deque.size() - skip);
+        int index = 0;
+        for (AiSignal item : deque) {
+            if (index++ >= skip) {
+                snapshot.add(item);
+            }
+        }
+        return snapshot;
+    }
+
+    private final class TimeBarSink implements BarSink {
+
+        @Override
+        public void onClosed(MarketBar bar) {
+            // The closed bar supersedes any forming update still waiting for its interval.
+            if (formingPending) {
+                formingPending = false;
+                formingConflated++;
+            }
+            publisher.publishBar(symbolId, bar);
+            bars.append(bar);
+            if (barFile != null) {
+                barFile.append(bar);
+            }
+            publisher.publishClosedBar(MarketEventPublisher.ONE_SECOND_MS, bar);
+            cascade.onClosedBar(bar);
+            if (signalBars == null) {
+                evaluate(bar);
+            }
+        }
+
+        @Override
+        public void onCorrection(MarketBar previous, MarketBar corrected) {
+            bars.correct(corrected);
+            if (barFile != null) {
+                barFile.correct(corrected);
+            }
+            publisher.publishBar(symbolId, corrected);
+            cascade.onCorrection(previous, corrected);
+        }
+    }
+}
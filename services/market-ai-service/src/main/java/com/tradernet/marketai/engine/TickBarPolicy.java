@@ -0,0 +1,24 @@
+package com.tradernet.marketai.engine;
+
+/**
+ * Closes a bar after a fixed number of trades.
+ */
+public class TickBarPolicy implements BarClosePolicy {
+
+    private final long tradesPerBar;
+    private long trades;
+
+    public TickBarPolicy(long tradesPerBar) {
+        this.tradesPerBar = Math.max(1L, tradesPerBar);
+    }
+
+    @Override
+    public boolean onTrade(double price, double quantity) {
+        return ++trades >= tradesPerBar;
+    }
+
+    @Override
+    public void reset() {
+        trades = 0L;
+    }
+}
@@ -0,0 +1,27 @@
+package com.tradernet.marketai.engine;
+
+/**
+ * Closes a bar once traded base volume, or quote notional for dollar bars, reaches a threshold.
+ */
+public class VolumeBarPolicy implements BarClosePolicy {
+
+    private final double threshold;
+    private final boolean notional;
+    private double accumulated;
+
+    public VolumeBarPolicy(double threshold, boolean notional) {
+        this.threshold = threshold;
+        this.notional = notional;
+    }
+
+    @Override
+    public boolean onTrade(double price, double quantity) {
+        accumulated += notional ? price * quantity : quantity;
+        return accumulated >= threshold;
+    }
+
+    @Override
+    public void reset() {
+        accumulated = 0.0;
+    }
+}
@@ -0,0 +1,63 @@
+package com.tradernet.marketai.engine;
+
+/**
+ * Rolling volume-weighted average of the typical price over the last {@code period} bars.
+ *
+ * <p>Windows without volume, such as gap-filled seconds, report the latest close. Whether a window has volume is
+ * decided by counting bars with volume, not by the running sum, which can be left a rounding residue away from
+ * zero.</p>
+ */
+public class VwapIndicator implements Indicator {
+
+    private final RollingWindow notionals;
+    private final RollingWindow volumes;
+
+    public VwapIndicator() {
+        this(60);
+    }
+
+    public VwapIndicator(int period) {
+        this.notionals = new RollingWindow(period);
+        this.volumes = new RollingWindow(period);
+    }
+
+    @Override
+    public String[] outputs() {
+        return new String[] {"vwap"};
+    }
+
+    @Override
+    public int warmUpBars() {
+        return volumes.size();
+    }
+
+    @Override
+    public void update(double open, double high, double low, double close, double volume, double[] vector, int offset) {
+        notionals.add((high + low + close) / 3.0 * volume);
+        volumes.add(volume);
+        vector[offset] = volumes.nonZeroCount() == 0 ? close : notionals.sum() / volumes.sum();
+    }
+
+    /**
+     * Computes every bar's typical-price notional in one pass over the columns before rolling the windows.
+     */
+    @Override
+    public void updateAll(double[] open, double[] high, double[] low, double[] close, double[] volume, int count,
+                          double[][] series, int offset) {
+        final double[] out = series[offset];
+        for (int bar = 0; bar < count; bar++) {
+            out[bar] = (high[bar] + low[bar] + close[bar]) / 3.0 * volume[bar];
+        }
+        for (int bar = 0; bar < count; bar++) {
+            notionals.add(out[bar]);
+            volumes.add(volume[bar]);
+            out[bar] = volumes.nonZeroCount() == 0 ? close[bar] : notionals.sum() / volumes.sum();
+        }
+    }
+
+    @Override
+    public void reset() {
+        notionals.clear();
+        volumes.clear();
+    }
+}
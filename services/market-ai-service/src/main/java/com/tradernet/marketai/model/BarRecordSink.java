@@ -0,0 +1,10 @@
+package com.tradernet.marketai.model;
+
+/**
+ * Receives one OHLCV bar as primitives, so bulk reads and merges do not allocate a {@link MarketBar} per record.
+ */
+@FunctionalInterface
+public interface BarRecordSink {
+
+    void accept(long bucketStart, double open, double high, double low, double close, double volume);
+}
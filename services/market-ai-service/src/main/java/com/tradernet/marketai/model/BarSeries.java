@@ -0,0 +1,95 @@
+package com.tradernet.marketai.model;
+
+import java.util.List;
+
+/**
+ * Columnar, time-ordered OHLCV bars of one symbol for batch computations.
+ *
+ * <p>The arrays are referenced, not copied, and may be longer than {@link #size()}; only the first {@code size}
+ * entries are bars.</p>
+ */
+public final class BarSeries {
+
+    private final String symbol;
+    private final long[] bucketStarts;
+    private final double[] opens;
+    private final double[] highs;
+    private final double[] lows;
+    private final double[] closes;
+    private final double[] volumes;
+    private final int size;
+
+    public BarSeries(String symbol,
+                     long[] bucketStarts,
+                     double[] opens,
+                     double[] highs,
+                     double[] lows,
+                     double[] closes,
+                     double[] volumes,
+                     int size) {
+        if (size < 0 || bucketStarts.length < size || opens.length < size || highs.length < size || lows.length < size
+                || closes.length < size || volumes.length < size) {
+            throw new IllegalArgumentException("Bar columns are shorter than size " + size);
+        }
+        this.symbol = symbol;
+        this.bucketStarts = bucketStarts;
+        this.opens = opens;
+        this.highs = highs;
+        this.lows = lows;
+        this.closes = closes;
+        this.volumes = volumes;
+        this.size = size;
+    }
+
+    public static BarSeries of(String symbol, List<MarketBar> bars) {
+        final int size = bars.size();
+        final long[] starts = new long[size];
+        final double[] opens = new double[size];
+        final double[] highs = new double[size];
+        final double[] lows = new double[size];
+        final double[] closes = new double[size];
+        final double[] volumes = new double[size];
+        for (int index = 0; index < size; index++) {
+            final MarketBar bar = bars.get(index);
+            starts[index] = bar.getBucketStart();
+            opens[index] = bar.getOpen();
+            highs[index] = bar.getHigh();
+            lows[index] = bar.getLow();
+            closes[index] = bar.getClose();
+            volumes[index] = bar.getVolume();
+        }
+        return new BarSeries(symbol, starts, opens, highs, lows, closes, volumes, size);
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long[] getBucketStarts() {
+        return bucketStarts;
+    }
+
+    public double[] getOpens() {
+        return opens;
+    }
+
+    public double[] getHighs() {
+        return highs;
+    }
+
+    public double[] getLows() {
+        return lows;
+    }
+
+    public double[] getCloses() {
+        return closes;
+    }
+
+    public double[] getVolumes() {
+        return volumes;
+    }
+}
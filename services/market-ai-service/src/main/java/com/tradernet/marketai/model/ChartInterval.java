@@ -16,6 +16,7 @@ public final class ChartInterval {
     private static final long MINUTE_MS = 60_000L;
     private static final long HOUR_MS = 3_600_000L;
     private static final long DAY_MS = 86_400_000L;
+    // Nominal lengths, used for sizing only; month and year buckets follow the calendar.
     private static final long MONTH_MS = 30L * DAY_MS;
     private static final long YEAR_MS = 365L * DAY_MS;
 
@@ -23,12 +24,14 @@ public final class ChartInterval {
     private final long durationMs;
     private final BinanceBaseInterval baseInterval;
     private final int mergeFactor;
+    private final int calendarMonths;
 
-    private ChartInterval(String token, long durationMs, BinanceBaseInterval baseInterval, int mergeFactor) {
+    private ChartInterval(String token, long durationMs, BinanceBaseInterval baseInterval, int mergeFactor, int calendarMonths) {
         this.token = token;
         this.durationMs = durationMs;
         this.baseInterval = baseInterval;
         this.mergeFactor = mergeFactor;
+        this.calendarMonths = calendarMonths;
     }
 
     public static ChartInterval parse(String rawToken) {
@@ -53,11 +56,33 @@ public final class ChartInterval {
             return fromDuration("1S", SECOND_MS);
         }
 
-        final long multiplier = unitToMs(matcher.group(2));
+        final String unit = matcher.group(2);
+        final int monthsPerUnit = monthsPerUnit(unit);
+        if (monthsPerUnit > 0) {
+            final long months = (long) amount * monthsPerUnit;
+            if (months <= Integer.MAX_VALUE) {
+                // Month and year multiples merge Binance's calendar-aligned monthly klines.
+                return new ChartInterval(normalized, unitToMs(unit) * amount, BinanceBaseInterval.ONE_MONTH, (int) months, (int) months);
+            }
+        }
+
+        final long multiplier = unitToMs(unit);
         final long duration = multiplier * amount;
         return fromDuration(normalized, Math.max(SECOND_MS, duration));
     }
 
+    private static int monthsPerUnit(String unit) {
+        switch (unit) {
+            case "N":
+            case "MO":
+                return 1;
+            case "Y":
+                return 12;
+            default:
+                return 0;
+        }
+    }
+
     private static long unitToMs(String unit) {
         switch (unit) {
             case "S":
@@ -80,15 +105,16 @@ public final class ChartInterval {
     }
 
     private static ChartInterval fromDuration(String token, long durationMs) {
+        // The base must divide the interval so merged buckets are made of whole base bars, e.g. 45M merges 15m bars.
         BinanceBaseInterval selected = BinanceBaseInterval.ONE_SECOND;
         for (BinanceBaseInterval candidate : BinanceBaseInterval.values()) {
-            if (candidate.durationMs <= durationMs) {
+            if (candidate != BinanceBaseInterval.ONE_MONTH && candidate.durationMs <= durationMs && durationMs % candidate.durationMs == 0) {
                 selected = candidate;
             }
         }
 
-        final int factor = Math.max(1, (int) Math.round((double) durationMs / selected.durationMs));
-        return new ChartInterval(token, durationMs, selected, factor);
+        final int factor = Math.max(1, (int) Math.min(Integer.MAX_VALUE, durationMs / selected.durationMs));
+        return new ChartInterval(token, durationMs, selected, factor, 0);
     }
 
     public String getToken() {
@@ -111,6 +137,14 @@ public final class ChartInterval {
         return mergeFactor;
     }
 
+    /**
+     * Calendar months per bar for month and year intervals (12 for 1Y), or 0 for fixed-length intervals. Calendar bars
+     * start on the first instant of a UTC month and {@link #getDurationMs()} is only their nominal length.
+     */
+    public int getCalendarMonths() {
+        return calendarMonths;
+    }
+
     private enum BinanceBaseInterval {
         ONE_SECOND("1s", SECOND_MS),
         ONE_MINUTE("1m", MINUTE_MS),
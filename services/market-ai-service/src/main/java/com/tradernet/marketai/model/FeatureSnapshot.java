@@ -2,16 +2,27 @@ package com.tradernet.marketai.model;
 
 /**
  * Incremental feature vector derived from closed bars.
+ *
+ * <p>Besides the named EMA/RSI fields, a snapshot carries the dense indicator vector written by the feature engine's
+ * {@code IndicatorRegistry}. Scorers resolve slots once through the registry and read values by index. The market
+ * context is attached by reference, not copied.</p>
+ *
+ * <p>Snapshots returned by the feature engine are flyweights: the engine refills the same instance, and the same
+ * indicator vector, for every bar. They are only valid until the engine's next bar; use {@link #copy()} to keep
+ * one.</p>
  */
 public class FeatureSnapshot {
 
-    private final String symbol;
-    private final long eventTime;
-    private final double close;
-    private final double emaFast;
-    private final double emaSlow;
-    private final double rsi;
-    private final MarketContextSnapshot marketContext;
+    private static final double[] NO_INDICATORS = new double[0];
+
+    private String symbol;
+    private long eventTime;
+    private double close;
+    private double emaFast;
+    private double emaSlow;
+    private double rsi;
+    private final double[] indicators;
+    private MarketContextSnapshot marketContext;
 
     public FeatureSnapshot(String symbol, long eventTime, double close, double emaFast, double emaSlow, double rsi) {
         this(symbol, eventTime, close, emaFast, emaSlow, rsi, MarketContextSnapshot.neutral());
@@ -24,6 +35,35 @@ public class FeatureSnapshot {
                            double emaSlow,
                            double rsi,
                            MarketContextSnapshot marketContext) {
+        this(symbol, eventTime, close, emaFast, emaSlow, rsi, NO_INDICATORS, marketContext);
+    }
+
+    /**
+     * @param indicators indicator vector, referenced rather than copied
+     */
+    public FeatureSnapshot(String symbol,
+                           long eventTime,
+                           double close,
+                           double emaFast,
+                           double emaSlow,
+                           double rsi,
+                           double[] indicators,
+                           MarketContextSnapshot marketContext) {
+        this.indicators = indicators == null ? NO_INDICATORS : indicators;
+        update(symbol, eventTime, close, emaFast, emaSlow, rsi, marketContext);
+    }
+
+    /**
+     * Refills this snapshot for the next bar. The indicator vector is expected to have been updated in place by
+     * its owner. Only the owning feature engine may call this.
+     */
+    public void update(String symbol,
+                       long eventTime,
+                       double close,
+                       double emaFast,
+                       double emaSlow,
+                       double rsi,
+                       MarketContextSnapshot marketContext) {
         this.symbol = symbol;
         this.eventTime = eventTime;
         this.close = close;
@@ -57,7 +97,32 @@ public class FeatureSnapshot {
         return rsi;
     }
 
+    /**
+     * Indicator value at {@code slot}, as assigned by the registry that produced this snapshot.
+     */
+    public double getIndicator(int slot) {
+        return indicators[slot];
+    }
+
+    public int getIndicatorCount() {
+        return indicators.length;
+    }
+
     public MarketContextSnapshot getMarketContext() {
         return marketContext;
     }
+
+    /**
+     * Same features with a different market context, in a new snapshot with its own indicator vector.
+     */
+    public FeatureSnapshot withMarketContext(MarketContextSnapshot context) {
+        return new FeatureSnapshot(symbol, eventTime, close, emaFast, emaSlow, rsi, indicators.clone(), context);
+    }
+
+    /**
+     * Detached copy that stays valid after the feature engine moves on. The market context is still shared.
+     */
+    public FeatureSnapshot copy() {
+        return withMarketContext(marketContext);
+    }
 }
@@ -2,19 +2,30 @@ package com.tradernet.marketai.model;
 
 /**
  * Normalized trade event emitted from a market data source.
+ *
+ * <p>The stream decoder reuses a single instance per connection, so consumers must copy any values they need to keep
+ * beyond the callback that delivered the trade.</p>
  */
 public class MarketTrade {
 
-    private final String symbol;
-    private final long eventTime;
-    private final double price;
-    private final double quantity;
+    private String symbol;
+    private long eventTime;
+    private double price;
+    private double quantity;
+
+    public MarketTrade() {
+    }
 
     public MarketTrade(String symbol, long eventTime, double price, double quantity) {
+        set(symbol, eventTime, price, quantity);
+    }
+
+    public MarketTrade set(String symbol, long eventTime, double price, double quantity) {
         this.symbol = symbol;
         this.eventTime = eventTime;
         this.price = price;
         this.quantity = quantity;
+        return this;
     }
 
     public String getSymbol() {
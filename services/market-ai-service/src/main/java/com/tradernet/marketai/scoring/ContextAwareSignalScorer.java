@@ -10,11 +10,15 @@ import java.util.List;
 
 /**
  * Blends the short-term technical model with a broader symbol-specific market intelligence score.
+ *
+ * <p>{@link #decide} only combines numbers; the regime drivers and filter notes are built by {@link #explain}, which
+ * replays the same decision while recording why.</p>
  */
 public class ContextAwareSignalScorer implements SignalScorer {
 
     private static final int BUY_SCORE_THRESHOLD = 58;
     private static final int SELL_SCORE_THRESHOLD = 42;
+    private static final String MODEL_VERSION = "context-v1";
 
     private final SignalScorer technicalScorer;
     private final MarketRegimeScoreEngine regimeScoreEngine;
@@ -30,65 +34,110 @@ public class ContextAwareSignalScorer implements SignalScorer {
 
     @Override
     public ScoreResult score(FeatureSnapshot features) {
-        final ScoreResult technical = technicalScorer.score(features);
+        final ScoreDecision decision = new ScoreDecision();
+        final List<String> notes = notes(features, technicalScorer.explain(features), decision);
+        return decision.toResult(notes);
+    }
+
+    @Override
+    public void decide(FeatureSnapshot features, ScoreDecision decision) {
+        decide(features, regimeScoreEngine.value(features), decision, null);
+    }
+
+    @Override
+    public List<String> explain(FeatureSnapshot features) {
+        return notes(features, technicalScorer.explain(features), new ScoreDecision());
+    }
+
+    /**
+     * The technical notes explain the technical scorer's part of {@code decision}; the filter is replayed into a
+     * scratch decision so {@code decision} stays as {@link #decide} wrote it.
+     */
+    @Override
+    public List<String> explain(FeatureSnapshot features, ScoreDecision decision) {
+        return notes(features, technicalScorer.explain(features, decision), new ScoreDecision());
+    }
+
+    private List<String> notes(FeatureSnapshot features, List<String> technicalNotes, ScoreDecision decision) {
         final MarketRegimeScore regimeScore = regimeScoreEngine.score(features);
-        final List<String> notes = new ArrayList<>(technical.getNotes());
-        final boolean contextAvailable = features.getMarketContext().isAvailable();
+        final List<String> notes = new ArrayList<>(technicalNotes);
         notes.add("market_score=" + regimeScore.getValue());
         notes.add("market_regime=" + regimeScore.getRegime());
         notes.addAll(regimeScore.getDrivers());
+        decide(features, regimeScore.getValue(), decision, notes);
+        return notes;
+    }
+
+    /**
+     * Applies the context filter to the technical decision, appending filter notes when {@code notes} is not null.
+     */
+    private void decide(FeatureSnapshot features, int regimeScore, ScoreDecision decision, List<String> notes) {
+        technicalScorer.decide(features, decision);
+        final SignalSide technicalSide = decision.getSide();
+        final double technicalConfidence = decision.getConfidence();
+        final boolean contextAvailable = features.getMarketContext().isAvailable();
 
-        if (technical.getSide() == SignalSide.BUY) {
+        if (technicalSide == SignalSide.BUY) {
             if (!contextAvailable) {
-                notes.add("context_filter=unavailable_passthrough");
-                return passThrough(technical, notes);
+                note(notes, "context_filter=unavailable_passthrough");
+                decision.set(technicalSide, technicalConfidence, MODEL_VERSION);
+                return;
             }
-            if (regimeScore.getValue() <= SELL_SCORE_THRESHOLD) {
-                notes.add("context_filter=blocked_bearish_context");
-                return hold(technical, regimeScore, notes);
+            if (regimeScore <= SELL_SCORE_THRESHOLD) {
+                note(notes, "context_filter=blocked_bearish_context");
+                hold(technicalConfidence, regimeScore, decision);
+                return;
             }
-            notes.add(regimeScore.getValue() >= BUY_SCORE_THRESHOLD ? "context_filter=confirmed" : "context_filter=non_contradictory");
-            return new ScoreResult(SignalSide.BUY, contextualConfidence(technical, regimeScore.getValue()), "context-v1", notes);
+            note(notes, regimeScore >= BUY_SCORE_THRESHOLD ? "context_filter=confirmed" : "context_filter=non_contradictory");
+            decision.set(SignalSide.BUY, contextualConfidence(technicalConfidence, regimeScore), MODEL_VERSION);
+            return;
         }
 
-        if (technical.getSide() == SignalSide.SELL) {
+        if (technicalSide == SignalSide.SELL) {
             if (!contextAvailable) {
-                notes.add("context_filter=unavailable_passthrough");
-                return passThrough(technical, notes);
+                note(notes, "context_filter=unavailable_passthrough");
+                decision.set(technicalSide, technicalConfidence, MODEL_VERSION);
+                return;
             }
-            if (regimeScore.getValue() >= BUY_SCORE_THRESHOLD) {
-                notes.add("context_filter=blocked_bullish_context");
-                return hold(technical, regimeScore, notes);
+            if (regimeScore >= BUY_SCORE_THRESHOLD) {
+                note(notes, "context_filter=blocked_bullish_context");
+                hold(technicalConfidence, regimeScore, decision);
+                return;
             }
-            notes.add(regimeScore.getValue() <= SELL_SCORE_THRESHOLD ? "context_filter=confirmed" : "context_filter=non_contradictory");
-            return new ScoreResult(SignalSide.SELL, contextualConfidence(technical, 100 - regimeScore.getValue()), "context-v1", notes);
+            note(notes, regimeScore <= SELL_SCORE_THRESHOLD ? "context_filter=confirmed" : "context_filter=non_contradictory");
+            decision.set(SignalSide.SELL, contextualConfidence(technicalConfidence, 100 - regimeScore), MODEL_VERSION);
+            return;
         }
 
-        if (contextAvailable && regimeScore.getValue() >= 72) {
-            return new ScoreResult(SignalSide.BUY, scoreConfidence(regimeScore.getValue()), "context-v1", notes);
+        if (contextAvailable && regimeScore >= 72) {
+            decision.set(SignalSide.BUY, scoreConfidence(regimeScore), MODEL_VERSION);
+            return;
         }
 
-        if (contextAvailable && regimeScore.getValue() <= 28) {
-            return new ScoreResult(SignalSide.SELL, scoreConfidence(100 - regimeScore.getValue()), "context-v1", notes);
+        if (contextAvailable && regimeScore <= 28) {
+            decision.set(SignalSide.SELL, scoreConfidence(100 - regimeScore), MODEL_VERSION);
+            return;
         }
 
-        notes.add(contextAvailable ? "context_filter=hold" : "context_filter=unavailable_hold");
-        return hold(technical, regimeScore, notes);
+        note(notes, contextAvailable ? "context_filter=hold" : "context_filter=unavailable_hold");
+        hold(technicalConfidence, regimeScore, decision);
     }
 
-    private ScoreResult passThrough(ScoreResult technical, List<String> notes) {
-        return new ScoreResult(technical.getSide(), technical.getConfidence(), "context-v1", notes);
+    private void note(List<String> notes, String note) {
+        if (notes != null) {
+            notes.add(note);
+        }
     }
 
-    private ScoreResult hold(ScoreResult technical, MarketRegimeScore regimeScore, List<String> notes) {
-        return new ScoreResult(SignalSide.HOLD, Math.max(technical.getConfidence(), scoreConfidence(Math.abs(regimeScore.getValue() - 50) + 50)), "context-v1", notes);
+    private void hold(double technicalConfidence, int regimeScore, ScoreDecision decision) {
+        decision.set(SignalSide.HOLD, Math.max(technicalConfidence, scoreConfidence(Math.abs(regimeScore - 50) + 50)), MODEL_VERSION);
     }
 
-    private double contextualConfidence(ScoreResult technical, int directionalScore) {
+    private double contextualConfidence(double technicalConfidence, int directionalScore) {
         if (directionalScore >= 58) {
-            return blendConfidence(technical.getConfidence(), directionalScore);
+            return blendConfidence(technicalConfidence, directionalScore);
         }
-        return Math.max(0.60, technical.getConfidence() * 0.95);
+        return Math.max(0.60, technicalConfidence * 0.95);
     }
 
     private double blendConfidence(double technicalConfidence, int directionalScore) {
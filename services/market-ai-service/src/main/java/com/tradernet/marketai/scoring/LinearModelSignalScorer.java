@@ -26,26 +26,41 @@ public class LinearModelSignalScorer implements SignalScorer {
 
     @Override
     public ScoreResult score(FeatureSnapshot features) {
-        final double emaDeltaPct = (features.getEmaFast() - features.getEmaSlow()) / Math.max(features.getClose(), 1.0);
-        final double rsiCentered = (features.getRsi() - 50.0) / 50.0;
+        final ScoreDecision decision = new ScoreDecision();
+        decide(features, decision);
+        return decision.toResult(explain(features));
+    }
 
-        // Logistic score in [0,1]. Positive values favor BUY, negative values favor SELL.
-        final double linear = (emaDeltaPct * 120.0) + (rsiCentered * 0.9);
-        final double probabilityBuy = 1.0 / (1.0 + Math.exp(-linear));
+    @Override
+    public void decide(FeatureSnapshot features, ScoreDecision decision) {
+        final double probabilityBuy = probabilityBuy(features);
+        if (probabilityBuy >= buyThreshold) {
+            decision.set(SignalSide.BUY, probabilityBuy, "linear-v1");
+        } else if (probabilityBuy <= sellThreshold) {
+            decision.set(SignalSide.SELL, 1.0 - probabilityBuy, "linear-v1");
+        } else {
+            decision.set(SignalSide.HOLD, Math.max(probabilityBuy, 1.0 - probabilityBuy), "linear-v1");
+        }
+    }
 
+    @Override
+    public List<String> explain(FeatureSnapshot features) {
         final List<String> notes = new ArrayList<>();
         notes.add("model=linear-logit");
-        notes.add("ema_delta_pct=" + String.format("%.6f", emaDeltaPct));
+        notes.add("ema_delta_pct=" + String.format("%.6f", emaDeltaPct(features)));
         notes.add("rsi=" + String.format("%.2f", features.getRsi()));
+        return notes;
+    }
 
-        if (probabilityBuy >= buyThreshold) {
-            return new ScoreResult(SignalSide.BUY, probabilityBuy, "linear-v1", notes);
-        }
+    private double probabilityBuy(FeatureSnapshot features) {
+        final double rsiCentered = (features.getRsi() - 50.0) / 50.0;
 
-        if (probabilityBuy <= sellThreshold) {
-            return new ScoreResult(SignalSide.SELL, 1.0 - probabilityBuy, "linear-v1", notes);
-        }
+        // Logistic score in [0,1]. Positive values favor BUY, negative values favor SELL.
+        final double linear = (emaDeltaPct(features) * 120.0) + (rsiCentered * 0.9);
+        return 1.0 / (1.0 + Math.exp(-linear));
+    }
 
-        return new ScoreResult(SignalSide.HOLD, Math.max(probabilityBuy, 1.0 - probabilityBuy), "linear-v1", notes);
+    private double emaDeltaPct(FeatureSnapshot features) {
+        return (features.getEmaFast() - features.getEmaSlow()) / Math.max(features.getClose(), 1.0);
     }
 }
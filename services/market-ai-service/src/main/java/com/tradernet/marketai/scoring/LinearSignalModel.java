@@ -0,0 +1,46 @@
+package com.tradernet.marketai.scoring;
+
+import com.tradernet.marketai.model.FeatureSnapshot;
+
+/**
+ * Weighted sum of features plus a bias, either passed through a logistic function or clamped to {@code [0, 1]}.
+ */
+public final class LinearSignalModel implements SignalModel {
+
+    private final String version;
+    private final int[] features;
+    private final double[] weights;
+    private final double bias;
+    private final boolean logistic;
+
+    LinearSignalModel(String version, int[] features, double[] weights, double bias, boolean logistic) {
+        this.version = version;
+        this.features = features;
+        this.weights = weights;
+        this.bias = bias;
+        this.logistic = logistic;
+    }
+
+    /**
+     * The weights {@link LinearModelSignalScorer} has always used, active until a model file is loaded.
+     */
+    static LinearSignalModel builtIn() {
+        return new LinearSignalModel("linear-v1",
+                new int[] {ModelFeatures.code("ema_delta_pct"), ModelFeatures.code("rsi_centered")},
+                new double[] {120.0, 0.9}, 0.0, true);
+    }
+
+    @Override
+    public String getVersion() {
+        return version;
+    }
+
+    @Override
+    public double probabilityBuy(FeatureSnapshot snapshot) {
+        double sum = bias;
+        for (int index = 0; index < features.length; index++) {
+            sum += weights[index] * ModelFeatures.value(snapshot, features[index]);
+        }
+        return logistic ? 1.0 / (1.0 + Math.exp(-sum)) : Math.max(0.0, Math.min(1.0, sum));
+    }
+}
@@ -0,0 +1,60 @@
+package com.tradernet.marketai.scoring;
+
+import com.tradernet.marketai.engine.IndicatorRegistry;
+import com.tradernet.marketai.model.FeatureSnapshot;
+
+/**
+ * Resolves the feature names used in model files to integer codes once at load time, and reads a coded feature from
+ * a {@link FeatureSnapshot} without allocating.
+ *
+ * <p>Besides the named snapshot fields ({@code close}, {@code ema_fast}, {@code ema_slow}, {@code rsi}) and two
+ * derived ones ({@code ema_delta_pct}, {@code rsi_centered}), every output of
+ * {@link IndicatorRegistry#standard()} is available under its own name, such as {@code macd.histogram}.</p>
+ */
+final class ModelFeatures {
+
+    private static final String[] BASE_FEATURES = {"close", "ema_fast", "ema_slow", "rsi", "ema_delta_pct", "rsi_centered"};
+    private static final IndicatorRegistry LAYOUT = IndicatorRegistry.standard();
+
+    private ModelFeatures() {
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code name} is not a known feature
+     */
+    static int code(String name) {
+        for (int index = 0; index < BASE_FEATURES.length; index++) {
+            if (BASE_FEATURES[index].equals(name)) {
+                return index;
+            }
+        }
+        return BASE_FEATURES.length + LAYOUT.slot(name);
+    }
+
+    /**
+     * Number of distinct feature codes.
+     */
+    static int count() {
+        return BASE_FEATURES.length + LAYOUT.width();
+    }
+
+    static double value(FeatureSnapshot features, int code) {
+        switch (code) {
+            case 0:
+                return features.getClose();
+            case 1:
+                return features.getEmaFast();
+            case 2:
+                return features.getEmaSlow();
+            case 3:
+                return features.getRsi();
+            case 4:
+                return (features.getEmaFast() - features.getEmaSlow()) / Math.max(features.getClose(), 1.0);
+            case 5:
+                return (features.getRsi() - 50.0) / 50.0;
+            default:
+                final int slot = code - BASE_FEATURES.length;
+                return slot < features.getIndicatorCount() ? features.getIndicator(slot) : 0.0;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.tradernet.marketai.scoring;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Reads {@code .model} weight files.
+ *
+ * <p>Files are big-endian, as written by {@link java.io.DataOutputStream}:</p>
+ * <pre>
+ * int    magic 0x544E4D44 ("TNMD")
+ * short  format version (1)
+ * byte   type: 1 linear, 2 logistic, 3 tree ensemble
+ * int    model version
+ * UTF    model name
+ * short  feature count, then one UTF feature name each
+ * linear/logistic: double bias, then one double weight per feature
+ * trees:           double base score, int tree count, then per tree:
+ *                  int node count, then per node: short feature index (-1 for a leaf),
+ *                  double threshold or leaf value, int left child, int right child (tree-local indices)
+ * </pre>
+ */
+public final class ModelFileReader {
+
+    public static final int MAGIC = 0x544E4D44;
+    public static final int FORMAT_VERSION = 1;
+    public static final int TYPE_LINEAR = 1;
+    public static final int TYPE_LOGISTIC = 2;
+    public static final int TYPE_TREES = 3;
+
+    private static final int MAX_FEATURES = 4_096;
+    private static final int MAX_NODES = 1_000_000;
+
+    private ModelFileReader() {
+    }
+
+    /**
+     * Model version number stored in the header, or {@code -1} if the file is not a model file.
+     */
+    public static int peekVersion(Path path) {
+        try (DataInputStream in = open(path)) {
+            if (in.readInt() != MAGIC || in.readUnsignedShort() != FORMAT_VERSION) {
+                return -1;
+            }
+            in.readUnsignedByte();
+            return in.readInt();
+        } catch (IOException ex) {
+            return -1;
+        }
+    }
+
+    /**
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static SignalModel read(Path path) throws IOException {
+        try (DataInputStream in = open(path)) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a model file: " + path);
+            }
+            final int format = in.readUnsignedShort();
+            if (format != FORMAT_VERSION) {
+                throw new IOException("Unsupported model format " + format + ": " + path);
+            }
+            final int type = in.readUnsignedByte();
+            final int modelVersion = in.readInt();
+            final String version = in.readUTF() + "-v" + modelVersion;
+
+            final int featureCount = in.readUnsignedShort();
+            if (featureCount > MAX_FEATURES) {
+                throw new IOException("Too many features in " + path);
+            }
+            final int[] features = new int[featureCount];
+            for (int index = 0; index < featureCount; index++) {
+                final String name = in.readUTF();
+                try {
+                    features[index] = ModelFeatures.code(name);
+                } catch (IllegalArgumentException ex) {
+                    throw new IOException("Unknown feature '" + name + "' in " + path, ex);
+                }
+            }
+
+            switch (type) {
+                case TYPE_LINEAR:
+                case TYPE_LOGISTIC:
+                    final double bias = in.readDouble();
+                    final double[] weights = new double[featureCount];
+                    for (int index = 0; index < featureCount; index++) {
+                        weights[index] = in.readDouble();
+                    }
+                    return new LinearSignalModel(version, features, weights, bias, type == TYPE_LOGISTIC);
+                case TYPE_TREES:
+                    return readTrees(in, path, version, features);
+                default:
+                    throw new IOException("Unknown model type " + type + ": " + path);
+            }
+        }
+    }
+
+    private static SignalModel readTrees(DataInputStream in, Path path, String version, int[] featureCodes) throws IOException {
+        final double baseScore = in.readDouble();
+        final int treeCount = in.readInt();
+        if (treeCount < 0 || treeCount > MAX_NODES) {
+            throw new IOException("Invalid tree count in " + path);
+        }
+        final int[] roots = new int[treeCount];
+        int[] features = new int[Math.max(16, treeCount * 7)];
+        double[] thresholds = new double[features.length];
+        int[] left = new int[features.length];
+        int[] right = new int[features.length];
+        int total = 0;
+        for (int tree = 0; tree < treeCount; tree++) {
+            final int nodeCount = in.readInt();
+            if (nodeCount <= 0 || total + (long) nodeCount > MAX_NODES) {
+                throw new IOException("Invalid node count in tree " + tree + " of " + path);
+            }
+            if (total + nodeCount > features.length) {
+                final int capacity = Math.max(total + nodeCount, features.length * 2);
+                features = Arrays.copyOf(features, capacity);
+                thresholds = Arrays.copyOf(thresholds, capacity);
+                left = Arrays.copyOf(left, capacity);
+                right = Arrays.copyOf(right, capacity);
+            }
+            roots[tree] = total;
+            for (int node = 0; node < nodeCount; node++) {
+                final int feature = in.readShort();
+                final double threshold = in.readDouble();
+                final int leftChild = in.readInt();
+                final int rightChild = in.readInt();
+                if (feature >= featureCodes.length || feature < -1) {
+                    throw new IOException("Invalid feature index in tree " + tree + " of " + path);
+                }
+                // Children must follow their parent, which rules out cycles.
+                if (feature >= 0 && (leftChild <= node || rightChild <= node || leftChild >= nodeCount || rightChild >= nodeCount)) {
+                    throw new IOException("Invalid child index in tree " + tree + " of " + path);
+                }
+                features[total + node] = feature < 0 ? -1 : featureCodes[feature];
+                thresholds[total + node] = threshold;
+                left[total + node] = total + leftChild;
+                right[total + node] = total + rightChild;
+            }
+            total += nodeCount;
+        }
+        return new TreeEnsembleSignalModel(version, baseScore, roots, Arrays.copyOf(features, total),
+                Arrays.copyOf(thresholds, total), Arrays.copyOf(left, total), Arrays.copyOf(right, total));
+    }
+
+    private static DataInputStream open(Path path) throws IOException {
+        final InputStream stream = Files.newInputStream(path);
+        return new DataInputStream(new BufferedInputStream(stream));
+    }
+}
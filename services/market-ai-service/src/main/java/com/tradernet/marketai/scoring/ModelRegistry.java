@@ -0,0 +1,227 @@
+package com.tradernet.marketai.scoring;
+
+import com.tradernet.marketai.model.FeatureSnapshot;
+import com.tradernet.marketai.model.MarketContextSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Holds the active {@link SignalModel} and replaces it when a newer {@code .model} file appears.
+ *
+ * <p>The directory {@code market.ai.model.dir} (by default {@code market-ai/models} inside the server data directory)
+ * is watched on a daemon thread. The valid file with the highest model version wins; if it fails to load, the next
+ * highest is tried. A new model is run on synthetic inputs first, so the JIT has compiled it before live bars reach
+ * it, and is then published through a volatile field; scorers read that field once per bar and explain a signal with
+ * the model that decided it, so a swap always falls between bars. Until a file is loaded the
+ * built-in linear weights are used.</p>
+ */
+public class ModelRegistry implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ModelRegistry.class);
+    private static final String EXTENSION = ".model";
+    private static final int PRE_WARM_ITERATIONS = 20_000;
+
+    private final Path directory;
+    // Files that failed to load, with the modification time they had then. Guarded by this.
+    private final Map<Path, FileTime> rejected = new HashMap<>();
+    private volatile SignalModel active = LinearSignalModel.builtIn();
+    private volatile int activeFileVersion = -1;
+    private volatile boolean used;
+    private volatile long swapCount;
+    private volatile long loadFailureCount;
+    private volatile double preWarmSink;
+    private WatchService watchService;
+    private Thread watcher;
+
+    public ModelRegistry(Path directory) {
+        this.directory = directory;
+    }
+
+    public static ModelRegistry fromSystemProperties() {
+        final String configured = System.getProperty("market.ai.model.dir");
+        final Path directory = configured == null || configured.isBlank()
+                ? Paths.get(System.getProperty("jboss.server.data.dir", System.getProperty("java.io.tmpdir")), "market-ai", "models")
+                : Paths.get(configured);
+        return new ModelRegistry(directory);
+    }
+
+    /**
+     * Creates a scorer that always uses this registry's active model. Watching only starts once a scorer exists.
+     */
+    public ModelSignalScorer newScorer() {
+        used = true;
+        return new ModelSignalScorer(this);
+    }
+
+    public SignalModel getActive() {
+        return active;
+    }
+
+    public long getSwapCount() {
+        return swapCount;
+    }
+
+    public long getLoadFailureCount() {
+        return loadFailureCount;
+    }
+
+    /**
+     * Loads the newest model in the directory and starts watching it, if any scorer uses this registry.
+     */
+    public synchronized void start() {
+        if (!used || watcher != null) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            watchService = FileSystems.getDefault().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException ex) {
+            LOG.warn("Cannot watch model directory {}; keeping model {}", directory, active.getVersion(), ex);
+            return;
+        }
+        reload();
+        watcher = new Thread(this::watch, "market-ai-model-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ex) {
+                LOG.debug("Closing model watch service failed", ex);
+            }
+        }
+        watcher = null;
+    }
+
+    /**
+     * Activates the highest-versioned valid model file if it is newer than the active one. Candidates are tried newest
+     * first until one loads; a rejected file is not read again until it is modified.
+     */
+    public synchronized void reload() {
+        final List<Candidate> candidates = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path file : files) {
+                final FileTime modified;
+                try {
+                    modified = Files.getLastModifiedTime(file);
+                } catch (IOException ex) {
+                    // Deleted since it was listed.
+                    continue;
+                }
+                if (modified.equals(rejected.get(file))) {
+                    continue;
+                }
+                final int version = ModelFileReader.peekVersion(file);
+                if (version > activeFileVersion) {
+                    candidates.add(new Candidate(file, version, modified));
+                }
+            }
+        } catch (IOException ex) {
+            LOG.warn("Cannot list model directory {}", directory, ex);
+            return;
+        }
+        rejected.keySet().removeIf(file -> !Files.exists(file));
+        candidates.sort(Comparator.comparingInt((Candidate candidate) -> candidate.version).reversed());
+
+        for (Candidate candidate : candidates) {
+            final SignalModel model;
+            try {
+                model = ModelFileReader.read(candidate.file);
+                preWarm(model);
+            } catch (IOException | RuntimeException ex) {
+                loadFailureCount++;
+                rejected.put(candidate.file, candidate.modified);
+                LOG.warn("Rejected model file {}; keeping model {}", candidate.file, active.getVersion(), ex);
+                continue;
+            }
+            final String previous = active.getVersion();
+            active = model;
+            activeFileVersion = candidate.version;
+            swapCount++;
+            LOG.info("Activated model {} from {} (was {})", model.getVersion(), candidate.file, previous);
+            return;
+        }
+    }
+
+    private void watch() {
+        while (true) {
+            final WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ClosedWatchServiceException ex) {
+                return;
+            }
+            // Events only say something changed; rescanning also picks up files still being written on the last event.
+            key.pollEvents();
+            reload();
+            if (!key.reset()) {
+                LOG.warn("Model directory {} is no longer watched", directory);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Runs {@code model} on random synthetic features, which both compiles its hot path and surfaces malformed
+     * models (for example out-of-range results) before they go live.
+     */
+    private void preWarm(SignalModel model) {
+        final Random random = new Random(42L);
+        final double[] indicators = new double[ModelFeatures.count()];
+        final MarketContextSnapshot context = MarketContextSnapshot.neutral();
+        final FeatureSnapshot features = new FeatureSnapshot("PREWARM", 0L, 100.0, 100.0, 100.0, 50.0, indicators, context);
+        double sink = 0.0;
+        for (int iteration = 0; iteration < PRE_WARM_ITERATIONS; iteration++) {
+            for (int slot = 0; slot < indicators.length; slot++) {
+                indicators[slot] = random.nextGaussian();
+            }
+            final double close = 100.0 + random.nextGaussian();
+            features.update("PREWARM", iteration, close, close + random.nextGaussian() * 0.1, close, random.nextDouble() * 100.0, context);
+            final double probability = model.probabilityBuy(features);
+            if (!(probability >= 0.0 && probability <= 1.0)) {
+                throw new IllegalStateException("Model " + model.getVersion() + " returned probability " + probability);
+            }
+            sink += probability;
+        }
+        preWarmSink = sink;
+    }
+
+    private static final class Candidate {
+
+        private final Path file;
+        private final int version;
+        private final FileTime modified;
+
+        private Candidate(Path file, int version, FileTime modified) {
+            this.file = file;
+            this.version = version;
+            this.modified = modified;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.tradernet.marketai.scoring;
+
+import com.tradernet.marketai.model.FeatureSnapshot;
+import com.tradernet.marketai.model.SignalSide;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scores with whatever model {@link ModelRegistry} currently has active, using the same buy/sell thresholds as
+ * {@link LinearModelSignalScorer}.
+ */
+public class ModelSignalScorer implements SignalScorer {
+
+    private final ModelRegistry registry;
+    private final double buyThreshold;
+    private final double sellThreshold;
+
+    ModelSignalScorer(ModelRegistry registry) {
+        this.registry = registry;
+        this.buyThreshold = Double.parseDouble(System.getProperty("market.ai.model.buyThreshold", "0.62"));
+        this.sellThreshold = Double.parseDouble(System.getProperty("market.ai.model.sellThreshold", "0.38"));
+    }
+
+    @Override
+    public ScoreResult score(FeatureSnapshot features) {
+        final ScoreDecision decision = new ScoreDecision();
+        decide(features, decision);
+        return decision.toResult(explain(features, decision));
+    }
+
+    @Override
+    public void decide(FeatureSnapshot features, ScoreDecision decision) {
+        final SignalModel model = registry.getActive();
+        final double probabilityBuy = model.probabilityBuy(features);
+        if (probabilityBuy >= buyThreshold) {
+            decision.set(SignalSide.BUY, probabilityBuy, model.getVersion());
+        } else if (probabilityBuy <= sellThreshold) {
+            decision.set(SignalSide.SELL, 1.0 - probabilityBuy, model.getVersion());
+        } else {
+            decision.set(SignalSide.HOLD, Math.max(probabilityBuy, 1.0 - probabilityBuy), model.getVersion());
+        }
+        decision.setModel(model);
+    }
+
+    @Override
+    public List<String> explain(FeatureSnapshot features) {
+        return explain(features, registry.getActive());
+    }
+
+    /**
+     * Explains with the model that made {@code decision}, not whichever is active by now.
+     */
+    @Override
+    public List<String> explain(FeatureSnapshot features, ScoreDecision decision) {
+        final SignalModel model = decision.getModel();
+        return explain(features, model != null ? model : registry.getActive());
+    }
+
+    private List<String> explain(FeatureSnapshot features, SignalModel model) {
+        final List<String> notes = new ArrayList<>();
+        notes.add("model=" + model.getVersion());
+        notes.add("p_buy=" + String.format("%.4f", model.probabilityBuy(features)));
+        return notes;
+    }
+}
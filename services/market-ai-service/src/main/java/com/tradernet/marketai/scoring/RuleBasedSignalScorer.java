@@ -13,22 +13,40 @@ public class RuleBasedSignalScorer implements SignalScorer {
 
     @Override
     public ScoreResult score(FeatureSnapshot features) {
-        final List<String> notes = new ArrayList<>();
-        SignalSide side = SignalSide.HOLD;
-        double confidence = 0.5;
+        final ScoreDecision decision = new ScoreDecision();
+        decide(features, decision);
+        return decision.toResult(explain(features));
+    }
+
+    @Override
+    public void decide(FeatureSnapshot features, ScoreDecision decision) {
+        if (bullish(features)) {
+            decision.set(SignalSide.BUY, Math.min(0.95, 0.55 + (features.getEmaFast() - features.getEmaSlow()) / Math.max(features.getClose(), 1.0)), "rules-v1");
+        } else if (bearish(features)) {
+            decision.set(SignalSide.SELL, Math.min(0.95, 0.55 + (features.getEmaSlow() - features.getEmaFast()) / Math.max(features.getClose(), 1.0)), "rules-v1");
+        } else {
+            decision.set(SignalSide.HOLD, 0.5, "rules-v1");
+        }
+    }
 
-        if (features.getEmaFast() > features.getEmaSlow() && features.getRsi() < 65.0) {
-            side = SignalSide.BUY;
-            confidence = Math.min(0.95, 0.55 + (features.getEmaFast() - features.getEmaSlow()) / Math.max(features.getClose(), 1.0));
+    @Override
+    public List<String> explain(FeatureSnapshot features) {
+        final List<String> notes = new ArrayList<>();
+        if (bullish(features)) {
             notes.add("ema_bullish");
             notes.add("rsi_not_overbought");
-        } else if (features.getEmaFast() < features.getEmaSlow() && features.getRsi() > 35.0) {
-            side = SignalSide.SELL;
-            confidence = Math.min(0.95, 0.55 + (features.getEmaSlow() - features.getEmaFast()) / Math.max(features.getClose(), 1.0));
+        } else if (bearish(features)) {
             notes.add("ema_bearish");
             notes.add("rsi_not_oversold");
         }
+        return notes;
+    }
+
+    private boolean bullish(FeatureSnapshot features) {
+        return features.getEmaFast() > features.getEmaSlow() && features.getRsi() < 65.0;
+    }
 
-        return new ScoreResult(side, confidence, "rules-v1", notes);
+    private boolean bearish(FeatureSnapshot features) {
+        return features.getEmaFast() < features.getEmaSlow() && features.getRsi() > 35.0;
     }
 }
@@ -0,0 +1,53 @@
+package com.tradernet.marketai.scoring;
+
+import com.tradernet.marketai.model.SignalSide;
+
+import java.util.List;
+
+/**
+ * Mutable side, confidence and model version written by {@link SignalScorer#decide}.
+ *
+ * <p>One instance is reused per signal engine, so scoring a bar allocates nothing. Notes are not part of a decision;
+ * they are built by {@link SignalScorer#explain} once a signal is actually emitted.</p>
+ */
+public final class ScoreDecision {
+
+    private SignalSide side = SignalSide.HOLD;
+    private double confidence;
+    private String modelVersion;
+    private SignalModel model;
+
+    public void set(SignalSide side, double confidence, String modelVersion) {
+        this.side = side;
+        this.confidence = confidence;
+        this.modelVersion = modelVersion;
+    }
+
+    public SignalSide getSide() {
+        return side;
+    }
+
+    public double getConfidence() {
+        return confidence;
+    }
+
+    public String getModelVersion() {
+        return modelVersion;
+    }
+
+    /**
+     * The model {@link ModelSignalScorer} last decided with, so its notes explain that model even if another has been
+     * activated since. Other scorers leave it alone.
+     */
+    SignalModel getModel() {
+        return model;
+    }
+
+    void setModel(SignalModel model) {
+        this.model = model;
+    }
+
+    public ScoreResult toResult(List<String> notes) {
+        return new ScoreResult(side, confidence, modelVersion, notes);
+    }
+}
@@ -0,0 +1,21 @@
+package com.tradernet.marketai.scoring;
+
+import com.tradernet.marketai.model.FeatureSnapshot;
+
+/**
+ * Immutable, loaded model mapping features to a buy probability.
+ *
+ * <p>Models are shared by every pipeline thread and must not allocate or keep state while scoring.</p>
+ */
+public interface SignalModel {
+
+    /**
+     * Name and version reported as the signal's model version, for example {@code trend-v7}.
+     */
+    String getVersion();
+
+    /**
+     * Probability in {@code [0, 1]} that the next move is up.
+     */
+    double probabilityBuy(FeatureSnapshot features);
+}
@@ -2,10 +2,40 @@ package com.tradernet.marketai.scoring;
 
 import com.tradernet.marketai.model.FeatureSnapshot;
 
+import java.util.List;
+
 /**
  * Scorer contract so production can swap between rule-based and model-based strategies.
+ *
+ * <p>The signal engine calls {@link #decide} for every bar and {@link #explain} only for bars that become signals.
+ * Scorers are shared between pipelines, so neither may keep per-call state in fields.</p>
  */
 public interface SignalScorer {
 
     ScoreResult score(FeatureSnapshot features);
+
+    /**
+     * Writes the decision for {@code features} without building notes. Built-in scorers override this to avoid
+     * allocating; the default falls back to {@link #score}.
+     */
+    default void decide(FeatureSnapshot features, ScoreDecision decision) {
+        final ScoreResult result = score(features);
+        decision.set(result.getSide(), result.getConfidence(), result.getModelVersion());
+    }
+
+    /**
+     * Notes explaining the decision for {@code features}.
+     */
+    default List<String> explain(FeatureSnapshot features) {
+        return score(features).getNotes();
+    }
+
+    /**
+     * Notes explaining {@code decision}, which {@link #decide} has just written for {@code features}. Scorers whose
+     * decision depends on something that can change in between, such as a hot-swapped model, override this to explain
+     * what was actually decided.
+     */
+    default List<String> explain(FeatureSnapshot features, ScoreDecision decision) {
+        return explain(features);
+    }
 }
@@ -1,21 +1,51 @@
 package com.tradernet.marketai.scoring;
 
+import com.tradernet.marketai.context.MarketRegimeScoreEngine;
+
 /**
  * Creates scorer implementation based on runtime configuration. Defaults to context-aware scoring.
+ *
+ * <p>{@code market.ai.scorer} accepts {@code rules}, {@code linear}, {@code model} (the hot-swappable
+ * {@link ModelRegistry} model), {@code context-model} (context filter around the registry model) and
+ * {@code context}.</p>
  */
 public final class SignalScorerFactory {
 
     private SignalScorerFactory() {
     }
 
+    /**
+     * Creates the configured scorer. Model scorers created here use a registry that is never started, so they keep
+     * the built-in weights; use {@link #create(ModelRegistry)} to load model files.
+     */
     public static SignalScorer create() {
-        final String scorerType = System.getProperty("market.ai.scorer", "context").trim().toLowerCase();
+        return create(ModelRegistry.fromSystemProperties());
+    }
+
+    public static SignalScorer create(ModelRegistry models) {
+        return create(System.getProperty("market.ai.scorer", "context"), models);
+    }
+
+    /**
+     * Creates the scorer named by {@code scorerType}; unknown names get the context-aware scorer.
+     */
+    public static SignalScorer create(String scorerType, ModelRegistry models) {
+        return createNormalized(scorerType.trim().toLowerCase(), models);
+    }
+
+    private static SignalScorer createNormalized(String scorerType, ModelRegistry models) {
         if ("rules".equals(scorerType)) {
             return new RuleBasedSignalScorer();
         }
         if ("linear".equals(scorerType)) {
             return new LinearModelSignalScorer();
         }
+        if ("model".equals(scorerType)) {
+            return models.newScorer();
+        }
+        if ("context-model".equals(scorerType)) {
+            return new ContextAwareSignalScorer(models.newScorer(), new MarketRegimeScoreEngine());
+        }
         return new ContextAwareSignalScorer();
     }
 }
@@ -0,0 +1,50 @@
+package com.tradernet.marketai.scoring;
+
+import com.tradernet.marketai.model.FeatureSnapshot;
+
+/**
+ * Sum of small regression trees plus a base score, passed through a logistic function, as exported by gradient
+ * boosting libraries.
+ *
+ * <p>All trees are flattened into shared node arrays. An inner node sends a value below its threshold to the left
+ * child and anything else to the right; a leaf has feature {@code -1} and carries its value in the threshold slot.
+ * Children always come after their parent, so evaluation cannot loop.</p>
+ */
+public final class TreeEnsembleSignalModel implements SignalModel {
+
+    private final String version;
+    private final double baseScore;
+    private final int[] roots;
+    private final int[] features;
+    private final double[] thresholds;
+    private final int[] left;
+    private final int[] right;
+
+    TreeEnsembleSignalModel(String version, double baseScore, int[] roots, int[] features, double[] thresholds, int[] left, int[] right) {
+        this.version = version;
+        this.baseScore = baseScore;
+        this.roots = roots;
+        this.features = features;
+        this.thresholds = thresholds;
+        this.left = left;
+        this.right = right;
+    }
+
+    @Override
+    public String getVersion() {
+        return version;
+    }
+
+    @Override
+    public double probabilityBuy(FeatureSnapshot snapshot) {
+        double sum = baseScore;
+        for (int root : roots) {
+            int node = root;
+            while (features[node] >= 0) {
+                node = ModelFeatures.value(snapshot, features[node]) < thresholds[node] ? left[node] : right[node];
+            }
+            sum += thresholds[node];
+        }
+        return 1.0 / (1.0 + Math.exp(-sum));
+    }
+}
@@ -0,0 +1,106 @@
+package com.tradernet.marketai.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Directory of {@link MappedBarFile}s, one per symbol and timeframe.
+ *
+ * <p>Files live under {@code market.ai.store.dir} (by default {@code market-ai/bars} inside the server data
+ * directory). Persistence is best effort: when disabled, or when a file cannot be opened, {@link #open} returns
+ * {@code null} and callers keep bars in memory only. Symbols name the files, so only letters and digits are accepted
+ * and no symbol can resolve outside the directory.</p>
+ */
+public class BarStore implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BarStore.class);
+    private static final Pattern SYMBOL = Pattern.compile("[A-Z0-9]+");
+
+    private final Path directory;
+    private final boolean enabled;
+    private final Map<String, MappedBarFile> files = new ConcurrentHashMap<>();
+
+    public BarStore(Path directory, boolean enabled) {
+        this.directory = directory;
+        this.enabled = enabled;
+    }
+
+    public static BarStore fromSystemProperties() {
+        final String configured = System.getProperty("market.ai.store.dir");
+        final Path directory = configured == null || configured.isBlank()
+                ? Paths.get(System.getProperty("jboss.server.data.dir", System.getProperty("java.io.tmpdir")), "market-ai", "bars")
+                : Paths.get(configured);
+        return new BarStore(directory, Boolean.parseBoolean(System.getProperty("market.ai.store.enabled", "true")));
+    }
+
+    /**
+     * Whether {@code symbol}, upper-cased, is made of letters and digits only and so can name a bar file.
+     */
+    public static boolean isValidSymbol(String symbol) {
+        return symbol != null && SYMBOL.matcher(symbol.toUpperCase(Locale.ROOT)).matches();
+    }
+
+    /**
+     * Returns the file for {@code symbol} and {@code timeframeMs}, opening it on first use.
+     *
+     * @throws IllegalArgumentException unless {@code symbol} is {@linkplain #isValidSymbol valid}
+     */
+    public MappedBarFile open(String symbol, long timeframeMs) {
+        if (!enabled) {
+            return null;
+        }
+        return files.computeIfAbsent(fileName(symbol, timeframeMs), name -> openFile(name, symbol, timeframeMs));
+    }
+
+    /**
+     * Returns the file for {@code symbol} and {@code timeframeMs} only if it already exists, so reads for symbols that
+     * were never streamed do not create empty files. Symbols that are not {@linkplain #isValidSymbol valid} cannot have
+     * a file, so they find nothing.
+     */
+    public MappedBarFile find(String symbol, long timeframeMs) {
+        if (!enabled || !isValidSymbol(symbol)) {
+            return null;
+        }
+        final String name = fileName(symbol, timeframeMs);
+        final MappedBarFile open = files.get(name);
+        if (open != null || !Files.exists(directory.resolve(name))) {
+            return open;
+        }
+        return open(symbol, timeframeMs);
+    }
+
+    @Override
+    public void close() {
+        files.values().forEach(MappedBarFile::close);
+        files.clear();
+    }
+
+    private MappedBarFile openFile(String name, String symbol, long timeframeMs) {
+        final Path path = directory.resolve(name);
+        try {
+            Files.createDirectories(directory);
+            final MappedBarFile file = MappedBarFile.open(path, symbol, timeframeMs);
+            LOG.info("Opened bar file {} with {} bars", path, file.size());
+            return file;
+        } catch (IOException | RuntimeException ex) {
+            LOG.warn("Unable to open bar file {}; bars for {} will not be persisted", path, symbol, ex);
+            return null;
+        }
+    }
+
+    private String fileName(String symbol, long timeframeMs) {
+        if (!isValidSymbol(symbol)) {
+            throw new IllegalArgumentException("Invalid symbol: " + symbol);
+        }
+        return symbol.toUpperCase(Locale.ROOT) + "-" + timeframeMs + "ms.bars";
+    }
+}
@@ -0,0 +1,332 @@
+package com.tradernet.marketai.store;
+
+import com.tradernet.marketai.model.BarRecordSink;
+import com.tradernet.marketai.model.MarketBar;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Append-only, memory-mapped file of closed bars for one symbol and timeframe.
+ *
+ * <p>The file starts with a 48-byte header followed by fixed 48-byte records ({@code bucketStart} then open, high,
+ * low, close and volume as doubles). Bucket starts are strictly increasing, so range queries binary-search the mapped
+ * records, narrowed first by a sparse in-memory index holding every {@value #INDEX_STRIDE}th bucket start.</p>
+ *
+ * <p>There is a single writer. Record bytes are written before the volatile record count is advanced, so readers on
+ * other threads only ever see complete records.</p>
+ */
+public final class MappedBarFile implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MappedBarFile.class);
+
+    private static final int HEADER_BYTES = 48;
+    private static final int RECORD_BYTES = 48;
+
+    private static final int MAGIC = 0x54_4E_42_52; // "TNBR"
+    private static final int FORMAT_VERSION = 1;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int TIMEFRAME_OFFSET = 8;
+    private static final int COUNT_OFFSET = 16;
+
+    private static final int INDEX_STRIDE = 4_096;
+    private static final int INITIAL_RECORDS = 65_536;
+    private static final long MAX_MAPPED_BYTES = Integer.MAX_VALUE;
+
+    private final Path path;
+    private final String symbol;
+    private final long timeframeMs;
+    private final FileChannel channel;
+
+    private volatile MappedByteBuffer buffer;
+    private volatile int count;
+    private volatile long[] sparseIndex;
+    private long lastBucketStart = Long.MIN_VALUE;
+    private boolean full;
+
+    private MappedBarFile(Path path, String symbol, long timeframeMs, FileChannel channel) {
+        this.path = path;
+        this.symbol = symbol;
+        this.timeframeMs = timeframeMs;
+        this.channel = channel;
+    }
+
+    /**
+     * Opens or creates the file at {@code path}. A file written for a different timeframe or format is rejected.
+     */
+    public static MappedBarFile open(Path path, String symbol, long timeframeMs) throws IOException {
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        final MappedBarFile file = new MappedBarFile(path, symbol, timeframeMs, channel);
+        try {
+            file.load();
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+        return file;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public long getTimeframeMs() {
+        return timeframeMs;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Appends a closed bar. Bars at or before the last stored bucket are ignored, keeping the file sorted.
+     * Must only be called by the owning writer thread.
+     *
+     * @return {@code true} when the bar was stored
+     */
+    public boolean append(long bucketStart, double open, double high, double low, double close, double volume) {
+        if (bucketStart <= lastBucketStart || full) {
+            return false;
+        }
+
+        final int index = count;
+        MappedByteBuffer target = buffer;
+        if (bytesFor(index + 1L) > target.capacity()) {
+            target = grow(index + 1);
+            if (target == null) {
+                return false;
+            }
+        }
+
+        final int offset = offsetOf(index);
+        target.putLong(offset, bucketStart);
+        target.putDouble(offset + 8, open);
+        target.putDouble(offset + 16, high);
+        target.putDouble(offset + 24, low);
+        target.putDouble(offset + 32, close);
+        target.putDouble(offset + 40, volume);
+        target.putLong(COUNT_OFFSET, index + 1L);
+
+        if (index % INDEX_STRIDE == 0) {
+            final long[] current = sparseIndex;
+            final long[] extended = Arrays.copyOf(current, current.length + 1);
+            extended[current.length] = bucketStart;
+            sparseIndex = extended;
+        }
+        lastBucketStart = bucketStart;
+        count = index + 1;
+        return true;
+    }
+
+    /**
+     * Rewrites the stored record with the same bucket start. Must only be called by the owning writer thread; a reader
+     * racing the rewrite may see a mix of old and new values for that one record.
+     *
+     * @return {@code false} when no record has that bucket start
+     */
+    public boolean correct(MarketBar bar) {
+        final int total = count;
+        final int index = lowerBound(bar.getBucketStart(), total);
+        final MappedByteBuffer target = buffer;
+        if (index >= total || target.getLong(offsetOf(index)) != bar.getBucketStart()) {
+            return false;
+        }
+
+        final int offset = offsetOf(index);
+        target.putDouble(offset + 8, bar.getOpen());
+        target.putDouble(offset + 16, bar.getHigh());
+        target.putDouble(offset + 24, bar.getLow());
+        target.putDouble(offset + 32, bar.getClose());
+        target.putDouble(offset + 40, bar.getVolume());
+        return true;
+    }
+
+    public boolean append(MarketBar bar) {
+        return append(bar.getBucketStart(), bar.getOpen(), bar.getHigh(), bar.getLow(), bar.getClose(), bar.getVolume());
+    }
+
+    /**
+     * Streams the newest {@code limit} records, oldest first, without allocating bar objects.
+     */
+    public void replayTail(int limit, BarRecordSink sink) {
+        final int total = count;
+        final MappedByteBuffer source = buffer;
+        for (int index = Math.max(0, total - Math.max(0, limit)); index < total; index++) {
+            final int offset = offsetOf(index);
+            sink.accept(source.getLong(offset),
+                    source.getDouble(offset + 8),
+                    source.getDouble(offset + 16),
+                    source.getDouble(offset + 24),
+                    source.getDouble(offset + 32),
+                    source.getDouble(offset + 40));
+        }
+    }
+
+    /**
+     * Copies the newest {@code limit} bars, oldest first.
+     */
+    public List<MarketBar> tail(int limit) {
+        final int total = count;
+        return read(Math.max(0, total - Math.max(1, limit)), total);
+    }
+
+    /**
+     * Copies bars with {@code fromInclusive <= bucketStart < toExclusive}, keeping the newest {@code limit} of them.
+     */
+    public List<MarketBar> range(long fromInclusive, long toExclusive, int limit) {
+        final int total = count;
+        final int start = lowerBound(fromInclusive, total);
+        final int end = lowerBound(toExclusive, total);
+        return read(Math.max(start, end - Math.max(1, limit)), end);
+    }
+
+    /**
+     * Flushes mapped pages to disk and releases the channel.
+     */
+    @Override
+    public void close() {
+        try {
+            final MappedByteBuffer current = buffer;
+            if (current != null) {
+                current.force();
+            }
+            channel.close();
+        } catch (IOException ex) {
+            LOG.warn("Unable to close bar file {}", path, ex);
+        }
+    }
+
+    private void load() throws IOException {
+        final long existingBytes = channel.size();
+        final long mappedBytes = Math.max(existingBytes, bytesFor(INITIAL_RECORDS));
+        buffer = map(mappedBytes);
+
+        if (existingBytes < HEADER_BYTES || buffer.getInt(MAGIC_OFFSET) == 0) {
+            buffer.putInt(MAGIC_OFFSET, MAGIC);
+            buffer.putInt(VERSION_OFFSET, FORMAT_VERSION);
+            buffer.putLong(TIMEFRAME_OFFSET, timeframeMs);
+            buffer.putLong(COUNT_OFFSET, 0L);
+            sparseIndex = new long[0];
+            return;
+        }
+
+        if (buffer.getInt(MAGIC_OFFSET) != MAGIC
+                || buffer.getInt(VERSION_OFFSET) != FORMAT_VERSION
+                || buffer.getLong(TIMEFRAME_OFFSET) != timeframeMs) {
+            throw new IOException("Unexpected bar file header in " + path);
+        }
+
+        // A count beyond the mapped records means a torn header write; keep only what is physically present.
+        final long recorded = buffer.getLong(COUNT_OFFSET);
+        final int total = (int) Math.max(0L, Math.min(recorded, (buffer.capacity() - HEADER_BYTES) / RECORD_BYTES));
+        final long[] index = new long[(total + INDEX_STRIDE - 1) / INDEX_STRIDE];
+        for (int slot = 0; slot < index.length; slot++) {
+            index[slot] = buffer.getLong(offsetOf(slot * INDEX_STRIDE));
+        }
+        sparseIndex = index;
+        lastBucketStart = total == 0 ? Long.MIN_VALUE : buffer.getLong(offsetOf(total - 1));
+        count = total;
+    }
+
+    private MappedByteBuffer grow(int requiredRecords) {
+        final long current = buffer.capacity();
+        final long required = bytesFor(requiredRecords);
+        final long target = Math.min(MAX_MAPPED_BYTES, Math.max(required, current * 2));
+        if (target < required) {
+            full = true;
+            LOG.warn("Bar file {} reached its maximum size; further bars are kept in memory only", path);
+            return null;
+        }
+
+        try {
+            // Readers may still hold the previous mapping; it remains valid until collected.
+            final MappedByteBuffer grown = map(target);
+            buffer = grown;
+            return grown;
+        } catch (IOException ex) {
+            full = true;
+            LOG.warn("Unable to grow bar file {}; further bars are kept in memory only", path, ex);
+            return null;
+        }
+    }
+
+    private MappedByteBuffer map(long bytes) throws IOException {
+        final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0L, bytes);
+        mapped.order(ByteOrder.LITTLE_ENDIAN);
+        return mapped;
+    }
+
+    private List<MarketBar> read(int fromIndex, int toIndex) {
+        final MappedByteBuffer source = buffer;
+        final List<MarketBar> result = new ArrayList<>(Math.max(0, toIndex - fromIndex));
+        for (int index = fromIndex; index < toIndex; index++) {
+            final int offset = offsetOf(index);
+            result.add(new MarketBar(symbol,
+                    source.getLong(offset),
+                    source.getDouble(offset + 8),
+                    source.getDouble(offset + 16),
+                    source.getDouble(offset + 24),
+                    source.getDouble(offset + 32),
+                    source.getDouble(offset + 40),
+                    true));
+        }
+        return result;
+    }
+
+    /**
+     * Index of the first record whose bucket start is at or after {@code bucketStart}, or {@code total} if none.
+     */
+    private int lowerBound(long bucketStart, int total) {
+        final long[] index = sparseIndex;
+        final int blocks = Math.min(index.length, (total + INDEX_STRIDE - 1) / INDEX_STRIDE);
+
+        // Last sparse entry strictly before the key bounds the block that can hold it.
+        int lowBlock = 0;
+        int highBlock = blocks - 1;
+        int block = -1;
+        while (lowBlock <= highBlock) {
+            final int mid = (lowBlock + highBlock) >>> 1;
+            if (index[mid] < bucketStart) {
+                block = mid;
+                lowBlock = mid + 1;
+            } else {
+                highBlock = mid - 1;
+            }
+        }
+        if (block < 0) {
+            return 0;
+        }
+
+        final MappedByteBuffer source = buffer;
+        int low = block * INDEX_STRIDE + 1;
+        int high = Math.min(total, (block + 1) * INDEX_STRIDE);
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (source.getLong(offsetOf(mid)) < bucketStart) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Only valid for records inside the mapping, which never exceeds 2 GB.
+    private static int offsetOf(int index) {
+        return HEADER_BYTES + index * RECORD_BYTES;
+    }
+
+    private static long bytesFor(long records) {
+        return HEADER_BYTES + records * RECORD_BYTES;
+    }
+}
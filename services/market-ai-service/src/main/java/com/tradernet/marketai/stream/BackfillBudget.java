@@ -0,0 +1,64 @@
+package com.tradernet.marketai.stream;
+
+/**
+ * REST work one reconnect backfill may do: a number of page requests and a wall-clock deadline.
+ *
+ * <p>A reconnecting socket withholds demand until its backfill is done, so it does not read Binance's pings either and
+ * is dropped if the backfill runs too long. The request cap keeps a reconnect of many symbols within the REST weight
+ * limit. {@link #share(int)} splits what is left evenly across the symbols still to replay, so one busy symbol cannot
+ * use up the budget of the others; requests a symbol does not need stay available to the rest.</p>
+ *
+ * <p>Only used from the thread running the backfill.</p>
+ */
+public final class BackfillBudget {
+
+    private final BackfillBudget parent;
+    private final long deadlineNanos;
+    private int remainingRequests;
+    private boolean refused;
+
+    public BackfillBudget(int maxRequests, long maxDurationMs) {
+        this(null, Math.max(0, maxRequests), System.nanoTime() + Math.max(0L, maxDurationMs) * 1_000_000L);
+    }
+
+    private BackfillBudget(BackfillBudget parent, int remainingRequests, long deadlineNanos) {
+        this.parent = parent;
+        this.remainingRequests = remainingRequests;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * An even part of the remaining requests, at least one, for one of {@code consumers} symbols still to replay.
+     * Requests taken from the share are also taken from this budget.
+     */
+    public BackfillBudget share(int consumers) {
+        final int requests = remainingRequests == 0 ? 0 : Math.max(1, remainingRequests / Math.max(1, consumers));
+        return new BackfillBudget(this, requests, deadlineNanos);
+    }
+
+    /**
+     * Takes one request from the budget, or returns {@code false} once the requests or the time are used up.
+     */
+    public boolean tryAcquire() {
+        if (isExhausted()) {
+            refused = true;
+            return false;
+        }
+        remainingRequests--;
+        if (parent != null) {
+            parent.remainingRequests--;
+        }
+        return true;
+    }
+
+    /**
+     * Whether a request was refused, so the replay stopped before the end of the gap.
+     */
+    public boolean wasRefused() {
+        return refused;
+    }
+
+    public boolean isExhausted() {
+        return remainingRequests <= 0 || System.nanoTime() - deadlineNanos >= 0L;
+    }
+}
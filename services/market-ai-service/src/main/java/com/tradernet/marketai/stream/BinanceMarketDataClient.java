@@ -0,0 +1,217 @@
+package com.tradernet.marketai.stream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tradernet.marketai.model.BarRecordSink;
+import com.tradernet.marketai.model.MarketBar;
+import com.tradernet.marketai.model.MarketTrade;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Binance REST market data used for chart history and for backfilling trades missed while the stream was down.
+ */
+public class BinanceMarketDataClient {
+
+    private static final String BASE_URL = "https://api.binance.com/api/v3";
+    private static final int MAX_PAGE_SIZE = 1_000;
+    // aggTrades rejects startTime/endTime windows longer than one hour.
+    private static final long AGG_TRADES_MAX_WINDOW_MS = 3_600_000L;
+    private static final long ONE_SECOND_MS = 1_000L;
+    private static final int MAX_HISTORY_BARS = 50_000;
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+
+    public BinanceMarketDataClient(HttpClient httpClient, ObjectMapper objectMapper) {
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+    }
+
+    public List<MarketBar> fetchKlines(String symbol, String binanceInterval, int limit) {
+        final List<MarketBar> result = new ArrayList<>(Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+        fetchKlines(symbol, binanceInterval, limit, (bucketStart, open, high, low, close, volume) ->
+                result.add(new MarketBar(symbol, bucketStart, open, high, low, close, volume, true)));
+        return result;
+    }
+
+    /**
+     * Streams the newest {@code count} klines to {@code sink}, oldest first, paging backwards past the 1,000-row limit
+     * of a single request. At most {@value #MAX_HISTORY_BARS} klines are read.
+     *
+     * @return number of klines handed to {@code sink}
+     */
+    public int fetchKlines(String symbol, String binanceInterval, int count, BarRecordSink sink) {
+        final int wanted = Math.max(1, Math.min(count, MAX_HISTORY_BARS));
+        final long[] starts = new long[wanted];
+        final double[] opens = new double[wanted];
+        final double[] highs = new double[wanted];
+        final double[] lows = new double[wanted];
+        final double[] closes = new double[wanted];
+        final double[] volumes = new double[wanted];
+
+        // Pages arrive newest first, so columns are filled from the end.
+        int filled = 0;
+        String endTime = "";
+        while (filled < wanted) {
+            final int pageLimit = Math.min(MAX_PAGE_SIZE, wanted - filled);
+            final JsonNode page = getJson("/klines?symbol=" + encode(symbol)
+                    + "&interval=" + encode(binanceInterval)
+                    + "&limit=" + pageLimit
+                    + endTime);
+            if (!page.isArray() || page.isEmpty()) {
+                break;
+            }
+
+            for (int index = page.size() - 1; index >= 0 && filled < wanted; index--) {
+                final JsonNode node = page.get(index);
+                if (!node.isArray() || node.size() < 6) {
+                    continue;
+                }
+                final int slot = wanted - 1 - filled;
+                starts[slot] = node.get(0).asLong();
+                opens[slot] = node.get(1).asDouble();
+                highs[slot] = node.get(2).asDouble();
+                lows[slot] = node.get(3).asDouble();
+                closes[slot] = node.get(4).asDouble();
+                volumes[slot] = node.get(5).asDouble();
+                filled++;
+            }
+
+            if (page.size() < pageLimit || filled == 0) {
+                break;
+            }
+            endTime = "&endTime=" + (starts[wanted - filled] - 1);
+        }
+
+        for (int slot = wanted - filled; slot < wanted; slot++) {
+            sink.accept(starts[slot], opens[slot], highs[slot], lows[slot], closes[slot], volumes[slot]);
+        }
+        return filled;
+    }
+
+    /**
+     * Replays trades in {@code (fromExclusive, toInclusive]} in time order.
+     *
+     * <p>Gaps that fit the aggTrades window are replayed trade by trade. Longer gaps fall back to 1s klines, each
+     * replayed as open/high/low/close trades with the bar volume on the close so one-second bars rebuild exactly.</p>
+     *
+     * <p>Every page request is taken from {@code budget}; once it is used up the replay stops where it got to.</p>
+     *
+     * @return number of trades handed to {@code sink}
+     */
+    public long backfillTrades(String symbol, long fromExclusive, long toInclusive, long maxTrades, BackfillBudget budget,
+                               Consumer<MarketTrade> sink) {
+        if (toInclusive <= fromExclusive || maxTrades <= 0) {
+            return 0L;
+        }
+        if (toInclusive - fromExclusive <= AGG_TRADES_MAX_WINDOW_MS) {
+            return backfillAggTrades(symbol, fromExclusive, toInclusive, maxTrades, budget, sink);
+        }
+        return backfillKlines(symbol, fromExclusive, toInclusive, maxTrades, budget, sink);
+    }
+
+    private long backfillAggTrades(String symbol, long fromExclusive, long toInclusive, long maxTrades, BackfillBudget budget,
+                                   Consumer<MarketTrade> sink) {
+        final MarketTrade trade = new MarketTrade();
+        long delivered = 0L;
+        String query = "/aggTrades?symbol=" + encode(symbol)
+                + "&startTime=" + (fromExclusive + 1)
+                + "&endTime=" + toInclusive
+                + "&limit=" + MAX_PAGE_SIZE;
+
+        while (delivered < maxTrades && budget.tryAcquire()) {
+            final JsonNode page = getJson(query);
+            if (!page.isArray() || page.isEmpty()) {
+                return delivered;
+            }
+
+            long lastId = -1L;
+            for (JsonNode node : page) {
+                final long eventTime = node.path("T").asLong();
+                if (eventTime > toInclusive || delivered >= maxTrades) {
+                    return delivered;
+                }
+                lastId = node.path("a").asLong();
+                sink.accept(trade.set(symbol, eventTime, node.path("p").asDouble(), node.path("q").asDouble()));
+                delivered++;
+            }
+
+            if (page.size() < MAX_PAGE_SIZE) {
+                return delivered;
+            }
+            query = "/aggTrades?symbol=" + encode(symbol) + "&fromId=" + (lastId + 1) + "&limit=" + MAX_PAGE_SIZE;
+        }
+        return delivered;
+    }
+
+    private long backfillKlines(String symbol, long fromExclusive, long toInclusive, long maxTrades, BackfillBudget budget,
+                                Consumer<MarketTrade> sink) {
+        final MarketTrade trade = new MarketTrade();
+        long delivered = 0L;
+        long startTime = fromExclusive + 1;
+
+        while (startTime <= toInclusive && delivered < maxTrades && budget.tryAcquire()) {
+            final JsonNode page = getJson("/klines?symbol=" + encode(symbol)
+                    + "&interval=1s"
+                    + "&startTime=" + startTime
+                    + "&endTime=" + toInclusive
+                    + "&limit=" + MAX_PAGE_SIZE);
+            if (!page.isArray() || page.isEmpty()) {
+                return delivered;
+            }
+
+            for (JsonNode node : page) {
+                if (!node.isArray() || node.size() < 6) {
+                    continue;
+                }
+                final long openTime = node.get(0).asLong();
+                sink.accept(trade.set(symbol, openTime, node.get(1).asDouble(), 0.0));
+                sink.accept(trade.set(symbol, openTime, node.get(2).asDouble(), 0.0));
+                sink.accept(trade.set(symbol, openTime, node.get(3).asDouble(), 0.0));
+                sink.accept(trade.set(symbol, openTime, node.get(4).asDouble(), node.get(5).asDouble()));
+                delivered += 4;
+                startTime = openTime + ONE_SECOND_MS;
+            }
+
+            if (page.size() < MAX_PAGE_SIZE) {
+                return delivered;
+            }
+        }
+        return delivered;
+    }
+
+    private JsonNode getJson(String pathAndQuery) {
+        final HttpRequest request = HttpRequest.newBuilder(URI.create(BASE_URL + pathAndQuery))
+                .timeout(Duration.ofSeconds(8))
+                .GET()
+                .build();
+
+        try {
+            final HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() < 200 || response.statusCode() > 299) {
+                return objectMapper.createObjectNode();
+            }
+            return objectMapper.readTree(response.body());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return objectMapper.createObjectNode();
+        } catch (IOException ex) {
+            return objectMapper.createObjectNode();
+        }
+    }
+
+    private String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,327 @@
+package com.tradernet.marketai.stream;
+
+import com.tradernet.marketai.model.MarketTrade;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * One Binance combined-stream WebSocket carrying up to a fixed number of {@code <symbol>@trade} streams.
+ *
+ * <p>Streams are added and removed on the open socket with SUBSCRIBE/UNSUBSCRIBE control messages so the
+ * connection never has to be rebuilt when the symbol set changes.</p>
+ *
+ * <p>Decoded trades are copied into a bounded {@link TradeRingBuffer} and processed by the client's pipeline thread,
+ * never on the socket thread. Demand is granted to the socket in batches of up to the configured window and only while
+ * the ring has room for every outstanding message, so a slow pipeline throttles the socket instead of blocking it.</p>
+ */
+class BinanceStreamConnection {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BinanceStreamConnection.class);
+
+    private static final String COMBINED_STREAM_ENDPOINT = "wss://stream.binance.com:9443/stream?streams=";
+    private static final long REPLAY_BACKOFF_NANOS = 100_000L;
+
+    private final int id;
+    private final HttpClient httpClient;
+    private final Consumer<BinanceStreamConnection> disconnectListener;
+    private final int demandWindow;
+    private final TradeRingBuffer ring;
+    private final BinanceTradeDecoder decoder = new BinanceTradeDecoder();
+    private final MarketTrade scratch = new MarketTrade();
+    private final MarketTrade drainHolder = new MarketTrade();
+    private final AtomicLong outstandingDemand = new AtomicLong();
+    private final AtomicLong droppedTrades = new AtomicLong();
+    private final Set<String> streams = new LinkedHashSet<>();
+    private final Map<String, Long> replayedUntil = new ConcurrentHashMap<>();
+    private final AtomicInteger nextRequestId = new AtomicInteger(1);
+
+    private volatile WebSocket webSocket;
+    private volatile boolean demandHeld;
+    private volatile boolean open;
+    private volatile boolean closedByClient;
+    private volatile long lastEventTime;
+    private volatile long disconnectedAt;
+    private StreamListener activeListener;
+    private CompletableFuture<WebSocket> pendingSend = CompletableFuture.completedFuture(null);
+
+    BinanceStreamConnection(int id,
+                            HttpClient httpClient,
+                            int demandWindow,
+                            int ringCapacity,
+                            Consumer<BinanceStreamConnection> disconnectListener) {
+        this.id = id;
+        this.httpClient = httpClient;
+        this.ring = new TradeRingBuffer(Math.max(ringCapacity, demandWindow));
+        this.demandWindow = Math.max(1, Math.min(demandWindow, ring.capacity()));
+        this.disconnectListener = disconnectListener;
+    }
+
+    synchronized void connect(Set<String> initialStreams) {
+        streams.addAll(initialStreams);
+        streams.forEach(this::registerSymbol);
+        openSocket();
+    }
+
+    /**
+     * Rebuilds the socket for the current stream set. Demand is withheld until {@link #resumeDemand()} so missed trades
+     * can be backfilled ahead of the first live message.
+     */
+    synchronized void reconnect() {
+        demandHeld = true;
+        openSocket();
+    }
+
+    void resumeDemand() {
+        demandHeld = false;
+        replenishDemand(webSocket);
+    }
+
+    /**
+     * Queues a backfilled trade ahead of live data, waiting for ring space instead of dropping.
+     * Only called between {@link #reconnect()} and {@link #resumeDemand()}, while no demand is granted to the new
+     * socket (draining does not grant any either), so the replaying thread is the sole producer.
+     */
+    void enqueueReplay(MarketTrade trade) {
+        while (!ring.offer(trade)) {
+            if (closedByClient) {
+                return;
+            }
+            LockSupport.parkNanos(REPLAY_BACKOFF_NANOS);
+        }
+    }
+
+    /**
+     * Called from the pipeline thread to process queued trades and hand freed ring space back to the socket as demand.
+     */
+    int drain(Consumer<MarketTrade> sink, int maxItems) {
+        final int drained = ring.drain(drainHolder, sink, maxItems);
+        // While a reconnect backfills, freed space must not let live trades in ahead of the replay.
+        if (drained > 0 && !demandHeld) {
+            replenishDemand(webSocket);
+        }
+        return drained;
+    }
+
+    int queuedTrades() {
+        return ring.size();
+    }
+
+    long getDroppedTrades() {
+        return droppedTrades.get();
+    }
+
+    /**
+     * Drops live trades at or before {@code eventTime} for {@code symbol}; backfill has already replayed them.
+     */
+    void skipReplayedTrades(String symbol, long eventTime) {
+        replayedUntil.put(symbol, eventTime);
+    }
+
+    synchronized void subscribe(String stream) {
+        if (streams.add(stream)) {
+            registerSymbol(stream);
+            sendControl("SUBSCRIBE", stream);
+        }
+    }
+
+    synchronized void unsubscribe(String stream) {
+        if (streams.remove(stream)) {
+            sendControl("UNSUBSCRIBE", stream);
+        }
+    }
+
+    synchronized int streamCount() {
+        return streams.size();
+    }
+
+    synchronized List<String> symbols() {
+        final List<String> symbols = new ArrayList<>(streams.size());
+        for (String stream : streams) {
+            symbols.add(toSymbol(stream));
+        }
+        return symbols;
+    }
+
+    boolean isOpen() {
+        return open;
+    }
+
+    long getLastEventTime() {
+        return lastEventTime;
+    }
+
+    long getDisconnectedAt() {
+        return disconnectedAt;
+    }
+
+    int getId() {
+        return id;
+    }
+
+    synchronized void close() {
+        closedByClient = true;
+        open = false;
+        final WebSocket socket = webSocket;
+        webSocket = null;
+        if (socket != null) {
+            socket.sendClose(WebSocket.NORMAL_CLOSURE, "shutdown");
+        }
+    }
+
+    private void openSocket() {
+        final URI endpoint = URI.create(COMBINED_STREAM_ENDPOINT + String.join("/", streams));
+        outstandingDemand.set(0L);
+        final StreamListener listener = new StreamListener(endpoint);
+        activeListener = listener;
+        final WebSocket socket = httpClient.newWebSocketBuilder().buildAsync(endpoint, listener).join();
+        webSocket = socket;
+        open = true;
+        pendingSend = CompletableFuture.completedFuture(socket);
+    }
+
+    private void replenishDemand(WebSocket socket) {
+        if (socket == null) {
+            return;
+        }
+
+        while (true) {
+            final long outstanding = outstandingDemand.get();
+            // Never grant more than the ring could absorb if every outstanding message turned out to be a trade.
+            final long grant = Math.min(demandWindow - outstanding, ring.remainingCapacity() - outstanding);
+            if (grant <= 0 || (outstanding > 0 && grant < demandWindow / 2)) {
+                return;
+            }
+            if (outstandingDemand.compareAndSet(outstanding, outstanding + grant)) {
+                socket.request(grant);
+                return;
+            }
+        }
+    }
+
+    private void registerSymbol(String stream) {
+        decoder.registerSymbol(toSymbol(stream));
+    }
+
+    private String toSymbol(String stream) {
+        return stream.substring(0, stream.indexOf('@')).toUpperCase(Locale.ROOT);
+    }
+
+    private void sendControl(String method, String stream) {
+        final WebSocket socket = webSocket;
+        if (socket == null) {
+            // Picked up from the stream set on the next reconnect.
+            return;
+        }
+
+        final String message = "{\"method\":\"" + method + "\",\"params\":[\"" + stream + "\"],\"id\":" + nextRequestId.getAndIncrement() + "}";
+        // The JDK WebSocket rejects a send while the previous one is still in flight, so control frames are chained.
+        pendingSend = pendingSend
+                .exceptionally(ex -> socket)
+                .thenCompose(ignored -> socket.sendText(message, true));
+    }
+
+    private void onFrame(CharSequence data, boolean last) {
+        // SUBSCRIBE/UNSUBSCRIBE acknowledgements carry only "result" and "id" and decode to nothing.
+        if (!decoder.onFrame(data, last, scratch) || scratch.getPrice() <= 0.0 || scratch.getQuantity() <= 0.0) {
+            return;
+        }
+        if (!replayedUntil.isEmpty() && isReplayed(scratch)) {
+            return;
+        }
+        lastEventTime = scratch.getEventTime();
+        if (!ring.offer(scratch)) {
+            droppedTrades.incrementAndGet();
+        }
+    }
+
+    private boolean isReplayed(MarketTrade trade) {
+        final Long until = replayedUntil.get(trade.getSymbol());
+        if (until == null) {
+            return false;
+        }
+        if (trade.getEventTime() <= until) {
+            return true;
+        }
+        replayedUntil.remove(trade.getSymbol());
+        return false;
+    }
+
+    /**
+     * Matched by listener rather than socket, so a close that arrives before {@link #openSocket()} has stored the new
+     * socket is still treated as a disconnect; it waits for the monitor until the open has finished.
+     */
+    private void onDisconnected(StreamListener listener) {
+        synchronized (this) {
+            if (closedByClient || listener != activeListener) {
+                return;
+            }
+            activeListener = null;
+            open = false;
+            webSocket = null;
+            disconnectedAt = System.currentTimeMillis();
+        }
+        disconnectListener.accept(this);
+    }
+
+    private final class StreamListener implements WebSocket.Listener {
+
+        private final URI endpoint;
+
+        private StreamListener(URI endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        @Override
+        public void onOpen(WebSocket webSocket) {
+            LOG.info("Connected Binance combined stream #{}: {}", id, endpoint);
+            if (!demandHeld) {
+                replenishDemand(webSocket);
+            }
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            outstandingDemand.decrementAndGet();
+            try {
+                onFrame(data, last);
+            } catch (Exception ex) {
+                LOG.warn("Unable to parse Binance trade payload", ex);
+            }
+            if (!demandHeld) {
+                replenishDemand(webSocket);
+            }
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+            LOG.info("Binance combined stream #{} closed ({}): {}", id, statusCode, reason);
+            onDisconnected(this);
+            return WebSocket.Listener.super.onClose(webSocket, statusCode, reason);
+        }
+
+        @Override
+        public void onError(WebSocket webSocket, Throwable error) {
+            LOG.error("Binance combined stream #" + id + " error", error);
+            onDisconnected(this);
+            WebSocket.Listener.super.onError(webSocket, error);
+        }
+    }
+}
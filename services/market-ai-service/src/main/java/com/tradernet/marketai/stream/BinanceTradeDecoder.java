@@ -0,0 +1,264 @@
+package com.tradernet.marketai.stream;
+
+import com.tradernet.marketai.model.MarketTrade;
+
+import java.util.Arrays;
+
+/**
+ * Streaming decoder for Binance trade payloads that reads {@code s}, {@code T}, {@code p} and {@code q} straight from
+ * the frame text into a reusable {@link MarketTrade}.
+ *
+ * <p>Both the raw ({@code /ws/<symbol>@trade}) and combined ({@code {"stream":..,"data":{..}}}) formats are accepted.
+ * Symbols are resolved against the subscribed symbol table so steady-state decoding does not allocate. Instances keep
+ * fragment state and must only be used by one connection.</p>
+ */
+public final class BinanceTradeDecoder {
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L,
+            10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L, 100_000_000_000_000L,
+            1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L
+    };
+    private static final int MAX_FAST_DIGITS = 18;
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private static final int FOUND_SYMBOL = 1;
+    private static final int FOUND_TIME = 2;
+    private static final int FOUND_PRICE = 4;
+    private static final int FOUND_QUANTITY = 8;
+    private static final int REQUIRED = FOUND_SYMBOL | FOUND_PRICE | FOUND_QUANTITY;
+
+    private final StringBuilder fragments = new StringBuilder(512);
+    private volatile String[] knownSymbols = new String[0];
+
+    /**
+     * Adds a symbol (upper case, as Binance reports it in {@code s}) to the allocation-free lookup table.
+     */
+    public synchronized void registerSymbol(String symbol) {
+        final String[] current = knownSymbols;
+        for (String known : current) {
+            if (known.equals(symbol)) {
+                return;
+            }
+        }
+        final String[] next = Arrays.copyOf(current, current.length + 1);
+        next[current.length] = symbol;
+        knownSymbols = next;
+    }
+
+    /**
+     * Accepts one WebSocket text frame. Partial frames are buffered until the final fragment arrives.
+     *
+     * @return {@code true} when a complete trade message was decoded into {@code target}
+     */
+    public boolean onFrame(CharSequence data, boolean last, MarketTrade target) {
+        if (!last) {
+            fragments.append(data);
+            return false;
+        }
+
+        if (fragments.length() == 0) {
+            return decode(data, target);
+        }
+
+        fragments.append(data);
+        try {
+            return decode(fragments, target);
+        } finally {
+            fragments.setLength(0);
+        }
+    }
+
+    /**
+     * Decodes a complete trade message.
+     *
+     * @return {@code true} when symbol, price and quantity were present; control frames such as subscription
+     * acknowledgements return {@code false}
+     */
+    public boolean decode(CharSequence json, MarketTrade target) {
+        final int length = json.length();
+        String symbol = null;
+        long eventTime = 0L;
+        double price = 0.0;
+        double quantity = 0.0;
+        int found = 0;
+
+        int index = 0;
+        while (index < length) {
+            if (json.charAt(index) != '"') {
+                index++;
+                continue;
+            }
+
+            final int keyStart = index + 1;
+            final int keyEnd = skipString(json, keyStart);
+            index = skipWhitespace(json, keyEnd + 1);
+            if (index >= length || json.charAt(index) != ':') {
+                // A string value (for example inside an array), not an object key.
+                continue;
+            }
+            index = skipWhitespace(json, index + 1);
+            if (index >= length) {
+                break;
+            }
+
+            final char key = keyEnd - keyStart == 1 ? json.charAt(keyStart) : 0;
+            final boolean quoted = json.charAt(index) == '"';
+            final int valueStart = quoted ? index + 1 : index;
+            final int valueEnd = quoted ? skipString(json, valueStart) : skipScalar(json, valueStart);
+
+            switch (key) {
+                case 's':
+                    symbol = resolveSymbol(json, valueStart, valueEnd);
+                    found |= FOUND_SYMBOL;
+                    break;
+                case 'T':
+                    eventTime = parseLong(json, valueStart, valueEnd);
+                    found |= FOUND_TIME;
+                    break;
+                case 'p':
+                    price = parseDecimal(json, valueStart, valueEnd);
+                    found |= FOUND_PRICE;
+                    break;
+                case 'q':
+                    quantity = parseDecimal(json, valueStart, valueEnd);
+                    found |= FOUND_QUANTITY;
+                    break;
+                default:
+                    break;
+            }
+            // Objects and arrays end a scalar immediately, so nested "data" keys are still visited.
+            index = quoted ? valueEnd + 1 : valueEnd;
+        }
+
+        if ((found & REQUIRED) != REQUIRED) {
+            return false;
+        }
+        target.set(symbol, (found & FOUND_TIME) != 0 ? eventTime : System.currentTimeMillis(), price, quantity);
+        return true;
+    }
+
+    private static double parseDecimal(CharSequence text, int start, int end) {
+        long mantissa = 0L;
+        int digits = 0;
+        int scale = 0;
+        boolean fraction = false;
+        boolean negative = false;
+
+        int index = start;
+        if (index < end && (text.charAt(index) == '-' || text.charAt(index) == '+')) {
+            negative = text.charAt(index) == '-';
+            index++;
+        }
+
+        for (; index < end; index++) {
+            final char c = text.charAt(index);
+            if (c >= '0' && c <= '9') {
+                if (digits > 0 || c != '0') {
+                    digits++;
+                }
+                if (digits > MAX_FAST_DIGITS) {
+                    return slowParse(text, start, end);
+                }
+                mantissa = mantissa * 10L + (c - '0');
+                if (fraction) {
+                    scale++;
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else {
+                // Exponents and anything unexpected take the exact JDK path.
+                return slowParse(text, start, end);
+            }
+        }
+
+        if (mantissa > MAX_EXACT_MANTISSA || scale >= POWERS_OF_TEN.length) {
+            return slowParse(text, start, end);
+        }
+
+        // Both operands are exact doubles, so the single division is correctly rounded.
+        final double value = scale == 0 ? (double) mantissa : (double) mantissa / POWERS_OF_TEN[scale];
+        return negative ? -value : value;
+    }
+
+    private static double slowParse(CharSequence text, int start, int end) {
+        try {
+            return Double.parseDouble(text.subSequence(start, end).toString());
+        } catch (NumberFormatException ex) {
+            return 0.0;
+        }
+    }
+
+    private static long parseLong(CharSequence text, int start, int end) {
+        long value = 0L;
+        for (int index = start; index < end; index++) {
+            final char c = text.charAt(index);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            value = value * 10L + (c - '0');
+        }
+        return value;
+    }
+
+    private String resolveSymbol(CharSequence text, int start, int end) {
+        final int length = end - start;
+        for (String known : knownSymbols) {
+            if (known.length() == length && regionMatches(known, text, start)) {
+                return known;
+            }
+        }
+
+        final String symbol = text.subSequence(start, end).toString();
+        registerSymbol(symbol);
+        return symbol;
+    }
+
+    private static boolean regionMatches(String known, CharSequence text, int start) {
+        for (int index = 0; index < known.length(); index++) {
+            if (known.charAt(index) != text.charAt(start + index)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int skipString(CharSequence text, int start) {
+        int index = start;
+        final int length = text.length();
+        while (index < length) {
+            final char c = text.charAt(index);
+            if (c == '\\') {
+                index += 2;
+                continue;
+            }
+            if (c == '"') {
+                return index;
+            }
+            index++;
+        }
+        return length;
+    }
+
+    private static int skipScalar(CharSequence text, int start) {
+        int index = start;
+        final int length = text.length();
+        while (index < length) {
+            final char c = text.charAt(index);
+            if (c == ',' || c == '}' || c == ']' || c == '{' || c == '[' || Character.isWhitespace(c)) {
+                return index;
+            }
+            index++;
+        }
+        return length;
+    }
+
+    private static int skipWhitespace(CharSequence text, int start) {
+        int index = start;
+        final int length = text.length();
+        while (index < length && Character.isWhitespace(text.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+}
@@ -1,87 +1,376 @@
 package com.tradernet.marketai.stream;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tradernet.marketai.model.MarketTrade;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.net.URI;
 import java.net.http.HttpClient;
-import java.net.http.WebSocket;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Locale;
-import java.util.concurrent.CompletionStage;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Consumer;
 
 /**
  * Lightweight Binance trade stream consumer.
+ *
+ * <p>Symbols are multiplexed over Binance combined streams. Each connection carries at most
+ * {@code market.ai.stream.maxStreamsPerConnection} trade streams; once that is reached further symbols are sharded
+ * onto an additional socket.</p>
+ *
+ * <p>Dropped connections are reconnected by a supervisor with jittered exponential backoff. Before live demand resumes
+ * the missed window is replayed from REST so downstream bars and indicators stay continuous. The replay is bounded by
+ * a {@link BackfillBudget} per reconnect, since the socket answers no pings until demand resumes; symbols the budget
+ * does not cover keep a gap.</p>
+ *
+ * <p>Socket threads only decode; the listener runs on a single {@code binance-trade-pipeline} thread that drains every
+ * connection's ring buffer in turn.</p>
  */
 public class BinanceTradeStreamClient {
 
     private static final Logger LOG = LoggerFactory.getLogger(BinanceTradeStreamClient.class);
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Binance accepts up to 1024 streams per connection; stay well below to keep control traffic per socket low.
+    private static final int DEFAULT_MAX_STREAMS_PER_CONNECTION = 200;
+    private static final long DEFAULT_BACKOFF_BASE_MS = 1_000L;
+    private static final long DEFAULT_BACKOFF_MAX_MS = 60_000L;
+    private static final long DEFAULT_BACKFILL_MAX_TRADES = 200_000L;
+    private static final long DEFAULT_BACKFILL_MAX_GAP_MS = 6L * 3_600_000L;
+    // Binance pings every 20 s and drops a socket that has not answered within a minute; one REST page can take 8 s.
+    private static final long DEFAULT_BACKFILL_MAX_DURATION_MS = 20_000L;
+    private static final int DEFAULT_BACKFILL_MAX_REQUESTS = 300;
+    private static final int DEFAULT_DEMAND_WINDOW = 256;
+    private static final int DEFAULT_RING_CAPACITY = 8_192;
+    private static final int DRAIN_BATCH = 256;
+    private static final long IDLE_PARK_NANOS = 100_000L;
+    private static final BinanceStreamConnection[] NO_CONNECTIONS = new BinanceStreamConnection[0];
+
     private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final BinanceMarketDataClient marketDataClient = new BinanceMarketDataClient(httpClient, new ObjectMapper());
+    private final int maxStreamsPerConnection;
+    private final long backoffBaseMs = Long.getLong("market.ai.stream.reconnect.baseDelayMs", DEFAULT_BACKOFF_BASE_MS);
+    private final long backoffMaxMs = Long.getLong("market.ai.stream.reconnect.maxDelayMs", DEFAULT_BACKOFF_MAX_MS);
+    private final long backfillMaxTrades = Long.getLong("market.ai.stream.backfill.maxTrades", DEFAULT_BACKFILL_MAX_TRADES);
+    private final long backfillMaxGapMs = Long.getLong("market.ai.stream.backfill.maxGapMs", DEFAULT_BACKFILL_MAX_GAP_MS);
+    private final long backfillMaxDurationMs = Long.getLong("market.ai.stream.backfill.maxDurationMs", DEFAULT_BACKFILL_MAX_DURATION_MS);
+    private final int backfillMaxRequests = Integer.getInteger("market.ai.stream.backfill.maxRequests", DEFAULT_BACKFILL_MAX_REQUESTS);
+    private final int demandWindow = Integer.getInteger("market.ai.stream.demandWindow", DEFAULT_DEMAND_WINDOW);
+    private final int ringCapacity = Integer.getInteger("market.ai.stream.ringCapacity", DEFAULT_RING_CAPACITY);
+
+    private final AtomicLong reconnectCount = new AtomicLong();
+    private final AtomicLong lastGapMs = new AtomicLong();
+    private final AtomicLong totalGapMs = new AtomicLong();
+    private final AtomicLong backfilledTradeCount = new AtomicLong();
+    private final AtomicLong truncatedBackfillCount = new AtomicLong();
+
+    private final List<BinanceStreamConnection> connections = new ArrayList<>();
+    private final Map<String, BinanceStreamConnection> connectionByStream = new HashMap<>();
 
-    private volatile WebSocket webSocket;
+    private volatile BinanceStreamConnection[] drainOrder = NO_CONNECTIONS;
+    private Consumer<MarketTrade> listener;
+    private ScheduledExecutorService supervisor;
+    private Thread pipelineThread;
     private volatile boolean running;
+    private int nextConnectionId = 1;
+
+    public BinanceTradeStreamClient() {
+        this(Integer.getInteger("market.ai.stream.maxStreamsPerConnection", DEFAULT_MAX_STREAMS_PER_CONNECTION));
+    }
+
+    public BinanceTradeStreamClient(int maxStreamsPerConnection) {
+        this.maxStreamsPerConnection = Math.max(1, Math.min(maxStreamsPerConnection, 1_024));
+    }
+
+    public void start(String symbol, Consumer<MarketTrade> listener) {
+        start(List.of(symbol), listener);
+    }
 
-    public synchronized void start(String symbol, Consumer<MarketTrade> listener) {
+    public synchronized void start(Collection<String> symbols, Consumer<MarketTrade> listener) {
         if (running) {
             return;
         }
-        final String stream = symbol.toLowerCase(Locale.ROOT) + "@trade";
-        final URI endpoint = URI.create("wss://stream.binance.com:9443/ws/" + stream);
+        this.listener = listener;
         running = true;
+        supervisor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "binance-stream-supervisor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        pipelineThread = new Thread(this::runPipeline, "binance-trade-pipeline");
+        pipelineThread.setDaemon(true);
+        pipelineThread.start();
 
-        webSocket = httpClient.newWebSocketBuilder().buildAsync(endpoint, new WebSocket.Listener() {
-            @Override
-            public void onOpen(WebSocket webSocket) {
-                LOG.info("Connected to Binance trade stream: {}", endpoint);
-                WebSocket.Listener.super.onOpen(webSocket);
-                webSocket.request(1);
+        final Set<String> pending = new LinkedHashSet<>();
+        for (String symbol : symbols) {
+            final String stream = toStream(symbol);
+            if (!stream.isEmpty()) {
+                pending.add(stream);
             }
+        }
 
-            @Override
-            public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
-                try {
-                    final JsonNode node = objectMapper.readTree(data.toString());
-                    final String eventSymbol = node.path("s").asText(symbol.toUpperCase(Locale.ROOT));
-                    final long eventTime = node.path("T").asLong(System.currentTimeMillis());
-                    final double price = node.path("p").asDouble(0.0);
-                    final double quantity = node.path("q").asDouble(0.0);
-                    if (price > 0.0 && quantity > 0.0) {
-                        listener.accept(new MarketTrade(eventSymbol, eventTime, price, quantity));
-                    }
-                } catch (Exception ex) {
-                    LOG.warn("Unable to parse Binance trade payload", ex);
-                }
-                webSocket.request(1);
-                return WebSocket.Listener.super.onText(webSocket, data, last);
+        final Set<String> batch = new LinkedHashSet<>();
+        for (String stream : pending) {
+            batch.add(stream);
+            if (batch.size() == maxStreamsPerConnection) {
+                openConnection(batch);
+                batch.clear();
             }
+        }
+        if (!batch.isEmpty()) {
+            openConnection(batch);
+        }
+    }
 
-            @Override
-            public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
-                LOG.info("Binance stream closed ({}): {}", statusCode, reason);
-                running = false;
-                return WebSocket.Listener.super.onClose(webSocket, statusCode, reason);
-            }
+    /**
+     * Adds a symbol to the live stream, reusing an existing connection with spare capacity when possible.
+     */
+    public synchronized void subscribe(String symbol) {
+        final String stream = toStream(symbol);
+        if (!running || stream.isEmpty() || connectionByStream.containsKey(stream)) {
+            return;
+        }
 
-            @Override
-            public void onError(WebSocket webSocket, Throwable error) {
-                LOG.error("Binance stream error", error);
-                running = false;
-                WebSocket.Listener.super.onError(webSocket, error);
+        for (BinanceStreamConnection connection : connections) {
+            if (connection.streamCount() < maxStreamsPerConnection) {
+                connection.subscribe(stream);
+                connectionByStream.put(stream, connection);
+                return;
             }
-        }).join();
+        }
+        openConnection(Set.of(stream));
+    }
+
+    /**
+     * Removes a symbol from the live stream. A connection left without streams is closed.
+     */
+    public synchronized void unsubscribe(String symbol) {
+        final String stream = toStream(symbol);
+        final BinanceStreamConnection connection = connectionByStream.remove(stream);
+        if (connection == null) {
+            return;
+        }
+
+        if (connection.streamCount() <= 1) {
+            connection.close();
+            connections.remove(connection);
+            drainOrder = connections.toArray(NO_CONNECTIONS);
+        } else {
+            connection.unsubscribe(stream);
+        }
+    }
+
+    public synchronized Set<String> getSubscribedSymbols() {
+        final Set<String> symbols = new LinkedHashSet<>();
+        for (String stream : connectionByStream.keySet()) {
+            symbols.add(stream.substring(0, stream.indexOf('@')).toUpperCase(Locale.ROOT));
+        }
+        return symbols;
+    }
+
+    public synchronized boolean isSubscribed(String symbol) {
+        return connectionByStream.containsKey(toStream(symbol));
+    }
+
+    public synchronized int getConnectionCount() {
+        return connections.size();
+    }
+
+    public long getReconnectCount() {
+        return reconnectCount.get();
+    }
+
+    public long getLastGapMs() {
+        return lastGapMs.get();
+    }
+
+    public long getTotalGapMs() {
+        return totalGapMs.get();
+    }
+
+    /**
+     * Symbol replays cut short by the backfill budget since start.
+     */
+    public long getTruncatedBackfillCount() {
+        return truncatedBackfillCount.get();
+    }
+
+    public long getBackfilledTradeCount() {
+        return backfilledTradeCount.get();
+    }
+
+    public long getQueuedTradeCount() {
+        long queued = 0L;
+        for (BinanceStreamConnection connection : drainOrder) {
+            queued += connection.queuedTrades();
+        }
+        return queued;
+    }
+
+    public long getDroppedTradeCount() {
+        long dropped = 0L;
+        for (BinanceStreamConnection connection : drainOrder) {
+            dropped += connection.getDroppedTrades();
+        }
+        return dropped;
     }
 
     public synchronized void stop() {
         running = false;
-        final WebSocket socket = webSocket;
-        webSocket = null;
-        if (socket != null) {
-            socket.sendClose(WebSocket.NORMAL_CLOSURE, "shutdown");
+        final Iterator<BinanceStreamConnection> iterator = connections.iterator();
+        while (iterator.hasNext()) {
+            iterator.next().close();
+            iterator.remove();
+        }
+        connectionByStream.clear();
+        drainOrder = NO_CONNECTIONS;
+        if (pipelineThread != null) {
+            LockSupport.unpark(pipelineThread);
+            pipelineThread = null;
+        }
+        if (supervisor != null) {
+            supervisor.shutdownNow();
+            supervisor = null;
+        }
+    }
+
+    private void openConnection(Set<String> streams) {
+        final BinanceStreamConnection connection = new BinanceStreamConnection(nextConnectionId++, httpClient, demandWindow, ringCapacity, this::onDisconnected);
+        connections.add(connection);
+        drainOrder = connections.toArray(NO_CONNECTIONS);
+        for (String stream : streams) {
+            connectionByStream.put(stream, connection);
+        }
+        try {
+            connection.connect(streams);
+        } catch (RuntimeException ex) {
+            LOG.warn("Unable to open Binance combined stream #{}, retrying", connection.getId(), ex);
+            scheduleReconnect(connection, 0);
+        }
+    }
+
+    private void onDisconnected(BinanceStreamConnection connection) {
+        scheduleReconnect(connection, 0);
+    }
+
+    private synchronized void scheduleReconnect(BinanceStreamConnection connection, int attempt) {
+        if (!running || supervisor == null || !connections.contains(connection)) {
+            return;
+        }
+        final long delayMs = backoffDelayMs(attempt);
+        LOG.info("Reconnecting Binance combined stream #{} in {} ms (attempt {})", connection.getId(), delayMs, attempt + 1);
+        supervisor.schedule(() -> reconnect(connection, attempt), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void reconnect(BinanceStreamConnection connection, int attempt) {
+        synchronized (this) {
+            if (!running || !connections.contains(connection)) {
+                return;
+            }
+        }
+
+        try {
+            connection.reconnect();
+        } catch (RuntimeException ex) {
+            LOG.warn("Binance combined stream #{} reconnect failed", connection.getId(), ex);
+            scheduleReconnect(connection, attempt + 1);
+            return;
+        }
+
+        reconnectCount.incrementAndGet();
+        try {
+            backfill(connection);
+        } finally {
+            // Live data must flow again even if the backfill failed part way.
+            connection.resumeDemand();
+        }
+    }
+
+    private void backfill(BinanceStreamConnection connection) {
+        final long lastEventTime = connection.getLastEventTime();
+        final long now = System.currentTimeMillis();
+        final long gapStart = lastEventTime > 0L ? lastEventTime : connection.getDisconnectedAt();
+        if (gapStart <= 0L) {
+            return;
+        }
+
+        final long gapMs = Math.max(0L, now - gapStart);
+        lastGapMs.set(gapMs);
+        totalGapMs.addAndGet(gapMs);
+        if (lastEventTime <= 0L) {
+            // Nothing was ever ingested on this connection, so there is no continuity to restore.
+            return;
+        }
+
+        final long fromExclusive = Math.max(lastEventTime, now - backfillMaxGapMs);
+        final List<String> symbols = connection.symbols();
+        final BackfillBudget budget = new BackfillBudget(backfillMaxRequests, backfillMaxDurationMs);
+        int truncated = 0;
+        for (int index = 0; index < symbols.size(); index++) {
+            final String symbol = symbols.get(index);
+            final BackfillBudget share = budget.share(symbols.size() - index);
+            final long[] lastReplayed = {fromExclusive};
+            final long replayed = marketDataClient.backfillTrades(symbol, fromExclusive, now, backfillMaxTrades, share, trade -> {
+                lastReplayed[0] = trade.getEventTime();
+                connection.enqueueReplay(trade);
+            });
+            backfilledTradeCount.addAndGet(replayed);
+            connection.skipReplayedTrades(symbol, lastReplayed[0]);
+            if (share.wasRefused()) {
+                truncated++;
+            }
+        }
+        truncatedBackfillCount.addAndGet(truncated);
+        if (truncated > 0) {
+            LOG.warn("Backfilled Binance combined stream #{} over a {} ms gap; {} of {} symbols ran out of backfill budget",
+                    connection.getId(), gapMs, truncated, symbols.size());
+        } else {
+            LOG.info("Backfilled Binance combined stream #{} over a {} ms gap", connection.getId(), gapMs);
+        }
+    }
+
+    private void runPipeline() {
+        final Consumer<MarketTrade> target = listener;
+        final Consumer<MarketTrade> sink = trade -> {
+            try {
+                target.accept(trade);
+            } catch (RuntimeException ex) {
+                LOG.error("Trade pipeline failed for {}", trade.getSymbol(), ex);
+            }
+        };
+        while (running) {
+            int drained = 0;
+            for (BinanceStreamConnection connection : drainOrder) {
+                drained += connection.drain(sink, DRAIN_BATCH);
+            }
+            if (drained == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private long backoffDelayMs(int attempt) {
+        final long ceiling = Math.min(backoffMaxMs, backoffBaseMs << Math.min(attempt, 20));
+        // Equal jitter: keep half the backoff and randomise the rest so reconnects from many sockets spread out.
+        final long half = Math.max(1L, ceiling / 2);
+        return half + ThreadLocalRandom.current().nextLong(half + 1);
+    }
+
+    private String toStream(String symbol) {
+        if (symbol == null || symbol.isBlank()) {
+            return "";
         }
+        return symbol.trim().toLowerCase(Locale.ROOT) + "@trade";
     }
 }
@@ -0,0 +1,220 @@
+package com.tradernet.marketai.stream;
+
+import com.tradernet.marketai.model.MarketBar;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-(symbol, interval) cache of exchange klines.
+ *
+ * <p>An entry stays valid until its newest bar's interval ends, or for at most {@code market.ai.klines.maxStaleMs}
+ * when nothing keeps it fresh. Closed one-second bars from the live stream are folded into the newest cached bar, so
+ * streamed symbols stay current without refetching. Concurrent misses for the same key share one upstream request.</p>
+ *
+ * <p>Entries are keyed by the interval's bar duration (or calendar months), so tokens naming the same interval share
+ * one entry, and at most {@code market.ai.klines.maxEntries} are kept; the least recently read is evicted first.</p>
+ */
+public class KlineCache {
+
+    private static final long DEFAULT_MAX_STALE_MS = 5_000L;
+    private static final long LIVE_BAR_MS = 1_000L;
+    private static final int DEFAULT_MAX_ENTRIES = 512;
+
+    private final long maxStaleMs = Long.getLong("market.ai.klines.maxStaleMs", DEFAULT_MAX_STALE_MS);
+    private final int maxEntries = Math.max(1, Integer.getInteger("market.ai.klines.maxEntries", DEFAULT_MAX_ENTRIES));
+    // Access-ordered so the least recently read entry is evicted first. Guarded by itself.
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, CompletableFuture<Entry>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong upstreamCalls = new AtomicLong();
+    private final AtomicLong coalescedRequests = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Returns the newest {@code limit} bars for {@code symbol} at one interval, loading them through {@code loader} on a
+     * miss.
+     *
+     * @param bucketMs bar duration, used to decide when the cached newest bar has ended
+     * @param calendarMonths months per bar for calendar intervals, whose bars vary in length; 0 otherwise
+     */
+    public List<MarketBar> get(String symbol, long bucketMs, int calendarMonths, int limit, KlineLoader loader) {
+        final String key = calendarMonths > 0 ? symbol + '|' + calendarMonths + "mo" : symbol + '|' + bucketMs + "ms";
+        final int wanted = Math.max(1, limit);
+
+        final Entry cached;
+        synchronized (entries) {
+            cached = entries.get(key);
+        }
+        if (cached != null && cached.covers(wanted, System.currentTimeMillis())) {
+            hits.incrementAndGet();
+            return cached.tail(wanted);
+        }
+        misses.incrementAndGet();
+
+        final CompletableFuture<Entry> pending = new CompletableFuture<>();
+        final CompletableFuture<Entry> existing = inFlight.putIfAbsent(key, pending);
+        if (existing != null) {
+            coalescedRequests.incrementAndGet();
+            final Entry shared = existing.join();
+            if (shared != null && shared.limit >= wanted) {
+                return shared.tail(wanted);
+            }
+            // The shared request asked for fewer bars than this caller needs.
+            return load(key, symbol, bucketMs, wanted, loader, null).tail(wanted);
+        }
+
+        try {
+            final Entry loaded = load(key, symbol, bucketMs, wanted, loader, cached);
+            pending.complete(loaded);
+            return loaded.tail(wanted);
+        } catch (RuntimeException ex) {
+            pending.complete(null);
+            throw ex;
+        } finally {
+            inFlight.remove(key, pending);
+        }
+    }
+
+    /**
+     * Folds a closed one-second bar from the live stream into every cached interval of its symbol.
+     */
+    public void onLiveBar(MarketBar bar) {
+        synchronized (entries) {
+            // Updating through the iterator leaves the access order alone, so live-fed entries nobody reads still age out.
+            for (Map.Entry<String, Entry> cached : entries.entrySet()) {
+                if (cached.getValue().symbol.equals(bar.getSymbol())) {
+                    cached.setValue(cached.getValue().merge(bar, maxStaleMs));
+                }
+            }
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getUpstreamCallCount() {
+        return upstreamCalls.get();
+    }
+
+    public long getCoalescedRequestCount() {
+        return coalescedRequests.get();
+    }
+
+    public int getEntryCount() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public double getHitRatio() {
+        final long hitCount = hits.get();
+        final long total = hitCount + misses.get();
+        return total == 0L ? 0.0 : (double) hitCount / total;
+    }
+
+    private Entry load(String key, String symbol, long bucketMs, int limit, KlineLoader loader, Entry previous) {
+        // Refill at least as deep as the entry being replaced so a small request does not shrink it.
+        final int fetchLimit = previous == null ? limit : Math.max(limit, previous.limit);
+        upstreamCalls.incrementAndGet();
+        final long fetchedAt = System.currentTimeMillis();
+        final List<MarketBar> bars = List.copyOf(loader.load(fetchLimit));
+        final long bucketEnd = bars.isEmpty() ? fetchedAt : bars.get(bars.size() - 1).getBucketStart() + bucketMs;
+        final Entry entry = new Entry(symbol, bars, fetchLimit, bucketMs, fetchedAt, Math.min(bucketEnd, fetchedAt + maxStaleMs));
+        if (!bars.isEmpty()) {
+            synchronized (entries) {
+                entries.put(key, entry);
+                final Iterator<Entry> eldest = entries.values().iterator();
+                while (entries.size() > maxEntries) {
+                    eldest.next();
+                    eldest.remove();
+                    evictions.incrementAndGet();
+                }
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Loads up to {@code limit} of the newest bars from upstream.
+     */
+    @FunctionalInterface
+    public interface KlineLoader {
+        List<MarketBar> load(int limit);
+    }
+
+    private static final class Entry {
+
+        private final String symbol;
+        private final List<MarketBar> bars;
+        private final int limit;
+        private final long bucketMs;
+        private final long fetchedAt;
+        private final long expiresAt;
+
+        private Entry(String symbol, List<MarketBar> bars, int limit, long bucketMs, long fetchedAt, long expiresAt) {
+            this.symbol = symbol;
+            this.bars = bars;
+            this.limit = limit;
+            this.bucketMs = bucketMs;
+            this.fetchedAt = fetchedAt;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean covers(int wanted, long now) {
+            // Upstream may legitimately return fewer bars than asked for (new listings), which still counts as covered.
+            return now < expiresAt && wanted <= limit;
+        }
+
+        private List<MarketBar> tail(int wanted) {
+            final int skip = Math.max(0, bars.size() - wanted);
+            return skip == 0 ? bars : bars.subList(skip, bars.size());
+        }
+
+        private Entry merge(MarketBar live, long maxStaleMs) {
+            if (bars.isEmpty()) {
+                return this;
+            }
+            final MarketBar last = bars.get(bars.size() - 1);
+            final long end = last.getBucketStart() + bucketMs;
+            // Seconds that had started before the fetch are already part of the upstream bar.
+            if (live.getBucketStart() < last.getBucketStart() || live.getBucketStart() < fetchedAt) {
+                return this;
+            }
+            if (live.getBucketStart() >= end) {
+                // The cached newest bar has ended; let the next read refetch so bucket alignment comes from upstream.
+                return new Entry(symbol, bars, limit, bucketMs, fetchedAt, 0L);
+            }
+
+            final List<MarketBar> updated = new ArrayList<>(bars);
+            updated.set(updated.size() - 1, new MarketBar(last.getSymbol(),
+                    last.getBucketStart(),
+                    last.getOpen(),
+                    Math.max(last.getHigh(), live.getHigh()),
+                    Math.min(last.getLow(), live.getLow()),
+                    live.getClose(),
+                    last.getVolume() + live.getVolume(),
+                    last.isClosed()));
+            // Live-fed entries stay valid until their newest bar ends, unless the stream goes quiet.
+            final long liveUntil = Math.min(end, live.getBucketStart() + LIVE_BAR_MS + maxStaleMs);
+            return new Entry(symbol, List.copyOf(updated), limit, bucketMs, fetchedAt, Math.max(expiresAt, liveUntil));
+        }
+    }
+}
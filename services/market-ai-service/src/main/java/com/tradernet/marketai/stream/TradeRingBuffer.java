@@ -0,0 +1,95 @@
+package com.tradernet.marketai.stream;
+
+import com.tradernet.marketai.model.MarketTrade;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Bounded single-producer/single-consumer queue of trades stored in primitive columns.
+ *
+ * <p>Offering copies the trade fields into the next slot, so producers can keep reusing one {@link MarketTrade}
+ * holder. Only one thread may offer at a time and only one thread may drain; a producer hand-over (for example from
+ * backfill to the socket thread) must be ordered by some other happens-before edge.</p>
+ */
+public final class TradeRingBuffer {
+
+    private final int capacity;
+    private final int mask;
+    private final String[] symbols;
+    private final long[] eventTimes;
+    private final double[] prices;
+    private final double[] quantities;
+
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private long cachedHead;
+
+    public TradeRingBuffer(int requestedCapacity) {
+        int size = 2;
+        while (size < requestedCapacity && size < (1 << 30)) {
+            size <<= 1;
+        }
+        this.capacity = size;
+        this.mask = size - 1;
+        this.symbols = new String[size];
+        this.eventTimes = new long[size];
+        this.prices = new double[size];
+        this.quantities = new double[size];
+    }
+
+    /**
+     * Copies {@code trade} into the ring.
+     *
+     * @return {@code false} when the ring is full
+     */
+    public boolean offer(MarketTrade trade) {
+        final long position = tail.getPlain();
+        if (position - cachedHead >= capacity) {
+            cachedHead = head.getAcquire();
+            if (position - cachedHead >= capacity) {
+                return false;
+            }
+        }
+
+        final int slot = (int) position & mask;
+        symbols[slot] = trade.getSymbol();
+        eventTimes[slot] = trade.getEventTime();
+        prices[slot] = trade.getPrice();
+        quantities[slot] = trade.getQuantity();
+        tail.setRelease(position + 1);
+        return true;
+    }
+
+    /**
+     * Hands up to {@code maxItems} queued trades to {@code sink}, reusing {@code holder} for each one.
+     *
+     * @return number of trades drained
+     */
+    public int drain(MarketTrade holder, Consumer<MarketTrade> sink, int maxItems) {
+        final long position = head.getPlain();
+        final int available = (int) Math.min(tail.getAcquire() - position, maxItems);
+        for (int index = 0; index < available; index++) {
+            final int slot = (int) (position + index) & mask;
+            sink.accept(holder.set(symbols[slot], eventTimes[slot], prices[slot], quantities[slot]));
+        }
+        if (available > 0) {
+            head.setRelease(position + available);
+        }
+        return available;
+    }
+
+    public int size() {
+        // Read the consumer index first so a concurrent drain can only make the result an overestimate.
+        final long position = head.getAcquire();
+        return (int) (tail.getAcquire() - position);
+    }
+
+    public int remainingCapacity() {
+        return capacity - size();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}